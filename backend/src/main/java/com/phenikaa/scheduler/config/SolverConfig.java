@@ -0,0 +1,20 @@
+package com.phenikaa.scheduler.config;
+
+import com.phenikaa.scheduler.core.SolverExecutors;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class SolverConfig {
+
+    // Pool tính toán riêng cho GA để luồng web không bị chậm khi đang xếp lịch
+    @Bean(destroyMethod = "shutdown")
+    public SolverExecutors solverExecutors(
+            @Value("${scheduler.solver.parallelism:0}") int parallelism,
+            @Value("${scheduler.solver.max-concurrent-solves:1}") int maxConcurrentSolves,
+            @Value("${scheduler.solver.queue-capacity:10}") int queueCapacity
+    ) {
+        return new SolverExecutors(parallelism, maxConcurrentSolves, queueCapacity);
+    }
+}
@@ -74,6 +74,16 @@ public class CourseOfferingController {
         return ResponseEntity.ok(offeringService.assignLecturer(id, lecturerId));
     }
 
+    // Ghim lịch: bộ xếp lịch giữ nguyên ngày / tiết / phòng của lớp này
+    @PutMapping("/{id}/pin")
+    public ResponseEntity<CourseOffering> pinOffering(@PathVariable Long id,
+                                                      @RequestParam(defaultValue = "true") boolean pinned,
+                                                      @RequestParam(required = false) Integer dayOfWeek,
+                                                      @RequestParam(required = false) Integer startPeriod,
+                                                      @RequestParam(required = false) Long roomId) {
+        return ResponseEntity.ok(offeringService.pinOffering(id, pinned, dayOfWeek, startPeriod, roomId));
+    }
+
     // API 2: Import dữ liệu từ file Excel (.xlsx)
     @PostMapping(value = "/import", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
     public ResponseEntity<String> importOfferings(@RequestParam("file") MultipartFile file) {
@@ -1,12 +1,20 @@
 package com.phenikaa.scheduler.controller;
 
+import com.phenikaa.scheduler.core.SolverOptions;
+import com.phenikaa.scheduler.dto.SolveJobStatus;
 import com.phenikaa.scheduler.model.Semester;
 import com.phenikaa.scheduler.repository.SemesterRepository;
 import com.phenikaa.scheduler.service.SchedulerService;
+import com.phenikaa.scheduler.service.SolveJob;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.concurrent.RejectedExecutionException;
 
 @RestController
 @RequestMapping("/api/v1/scheduler")
@@ -24,15 +32,17 @@ public class SchedulerController {
     }
 
     /**
-     * API duy nhất để xếp lịch: Sử dụng Genetic Algorithm
+     * API duy nhất để xếp lịch: mặc định Genetic Algorithm, chọn engine khác qua algorithm (VD: algorithm=SA)
+     * Tham số GA (VD: seed, islandModel, islands, migrationInterval, migrants, topology) truyền qua query param.
      */
     @PostMapping("/generate")
-    public ResponseEntity<String> generateSchedule(@RequestParam(required = false) Long semesterId) {
+    public ResponseEntity<String> generateSchedule(@RequestParam(required = false) Long semesterId,
+                                                   SolverOptions options) {
         try {
             long startTime = System.currentTimeMillis();
 
-            // Chạy GA (theo semesterId nếu được truyền vào)
-            String result = schedulerService.generateSchedule(semesterId);
+            // Chạy engine đã chọn (theo semesterId nếu được truyền vào)
+            String result = schedulerService.generateSchedule(semesterId, options);
 
             long duration = System.currentTimeMillis() - startTime;
 
@@ -47,9 +57,55 @@ public class SchedulerController {
                     semLabel, result, duration
             ));
 
+        } catch (RejectedExecutionException e) {
+            // Hàng đợi xếp lịch đã đầy: báo bận thay vì chiếm thêm tài nguyên máy chủ
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .body("Bộ xếp lịch đang bận, vui lòng thử lại sau.");
         } catch (Exception e) {
             log.error("Failed to generate schedule", e);
             return ResponseEntity.internalServerError().body("Lỗi hệ thống: " + e.getMessage());
         }
     }
-}
\ No newline at end of file
+
+    // --- XẾP LỊCH CHẠY NỀN (JOB) ---
+
+    /**
+     * Gửi yêu cầu xếp lịch và trả về ngay mã job (202 Accepted).
+     * Theo dõi tiến độ qua GET /jobs/{jobId}, hủy qua DELETE /jobs/{jobId}.
+     */
+    @PostMapping("/jobs")
+    public ResponseEntity<?> submitJob(@RequestParam(required = false) Long semesterId, SolverOptions options) {
+        try {
+            SolveJob job = schedulerService.submitScheduleJob(semesterId, options);
+            return ResponseEntity.accepted().body(job.toStatus());
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body("Error: " + e.getMessage());
+        } catch (RejectedExecutionException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .body("Bộ xếp lịch đang bận, vui lòng thử lại sau.");
+        }
+    }
+
+    @GetMapping("/jobs/{jobId}")
+    public ResponseEntity<SolveJobStatus> getJob(@PathVariable String jobId) {
+        return schedulerService.getJob(jobId)
+                .map(job -> ResponseEntity.ok(job.toStatus()))
+                .orElse(ResponseEntity.notFound().build());
+    }
+
+    // Theo dõi tiến độ trực tiếp (Server-Sent Events): "progress" mỗi lần có ảnh chụp mới, "status" khi kết thúc
+    @GetMapping(value = "/jobs/{jobId}/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> streamJob(@PathVariable String jobId) {
+        return schedulerService.subscribe(jobId)
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+    }
+
+    // Hủy hợp tác: GA dừng giữa 2 thế hệ và vẫn lưu lịch tốt nhất tìm được tới lúc đó
+    @DeleteMapping("/jobs/{jobId}")
+    public ResponseEntity<SolveJobStatus> cancelJob(@PathVariable String jobId) {
+        return schedulerService.cancelJob(jobId)
+                .map(job -> ResponseEntity.accepted().body(job.toStatus()))
+                .orElse(ResponseEntity.notFound().build());
+    }
+}
@@ -0,0 +1,278 @@
+package com.phenikaa.scheduler.core;
+
+import com.phenikaa.scheduler.model.CourseOffering;
+import com.phenikaa.scheduler.model.Lecturer;
+import com.phenikaa.scheduler.model.Room;
+import com.phenikaa.scheduler.repository.CourseOfferingRepository;
+import com.phenikaa.scheduler.repository.RoomRepository;
+import com.phenikaa.scheduler.service.AutoAssignService;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * Khung chung của các engine: nạp & biên dịch bài toán, cấp seed, chạy thuật toán trong pool của bộ xếp lịch
+ * rồi lưu lời giải tốt nhất. Engine con chỉ cài đặt phần tìm kiếm ({@link #solve}).
+ */
+public abstract class AbstractSchedulingEngine implements SchedulingEngine {
+
+    @Autowired private CourseOfferingRepository offeringRepo;
+    @Autowired private RoomRepository roomRepo;
+    @Autowired private SolverExecutors solverExecutors;
+    @Autowired private AutoAssignService autoAssignService;
+
+    // Kíp học hợp lệ: Online bắt buộc tối (13), Offline: 1, 4, 7, 10
+    static final int[] ONLINE_SLOTS = {13};
+    static final int[] OFFLINE_SLOTS = {1, 4, 7, 10};
+
+    // Chọn gen cần sửa ở các engine quỹ đạo đơn: ưu tiên gen đang vi phạm
+    private static final double CONFLICT_PICK_RATE = 0.8; // Xác suất ưu tiên chọn gen đang vi phạm
+    private static final int CONFLICT_SAMPLES = 8;        // Số gen bốc thử khi tìm gen vi phạm
+    // Xác suất nước đi đổi giảng viên (giữ kíp, phòng) khi gen được chọn là lớp tự phân công (assignLecturers)
+    static final double LECTURER_MOVE_RATE = 0.2;
+
+    // Lời giải tốt nhất của engine và phần mô tả thêm cho chuỗi kết quả (VD: " | Islands: 4")
+    record EngineResult(Schedule best, String details) { }
+
+    // Số thế hệ / số vòng lặp mặc định và ngưỡng fitness mặc định khi SolverOptions để trống
+    abstract int defaultGenerations();
+
+    abstract double defaultTargetFitness();
+
+    // Chạy bên trong computePool; runRandom là luồng ngẫu nhiên gốc của lần chạy (sinh từ seed).
+    // shared: lời giải chung khi chạy trong portfolio (null nếu chạy riêng lẻ)
+    abstract EngineResult solve(CompiledProblem problem, SolverOptions options, Termination termination,
+                                SplittableRandom runRandom, SolverMonitor monitor, SharedIncumbent shared);
+
+    // --- HÀM CHÍNH ---
+    public String run(Long semesterId) {
+        return run(semesterId, new SolverOptions());
+    }
+
+    public String run(Long semesterId, SolverOptions options) {
+        return run(semesterId, options, SolverMonitor.NONE);
+    }
+
+    // Nạp dữ liệu và lưu kết quả đều qua repository (mỗi lời gọi 1 transaction ngắn),
+    // phần tìm kiếm ở giữa không giữ transaction / kết nối DB nào
+    @Override
+    public String run(Long semesterId, SolverOptions options, SolverMonitor monitor) {
+        Termination termination = Termination.of(options, defaultGenerations(), defaultTargetFitness(), System.nanoTime());
+        List<CourseOffering> offerings = new ArrayList<>(offeringRepo.findBySemester_Id(semesterId));
+        List<Room> rooms = new ArrayList<>(roomRepo.findAll());
+
+        // Lớp được ghim giữ nguyên lịch: không vào nhiễm sắc thể, chỉ là phần chiếm chỗ cố định
+        List<CourseOffering> pinned = new ArrayList<>(offerings.stream().filter(CompiledProblem::isPinned).toList());
+        offerings.removeIf(CompiledProblem::isPinned);
+
+        if (offerings.isEmpty()) return "Không có lớp học phần nào để xếp.";
+
+        // Cố định thứ tự (ordinal) theo id để cùng seed luôn cho cùng kết quả, bất kể DB trả về theo thứ tự nào
+        offerings.sort(Comparator.comparing(CourseOffering::getId, Comparator.nullsLast(Comparator.naturalOrder())));
+        pinned.sort(Comparator.comparing(CourseOffering::getId, Comparator.nullsLast(Comparator.naturalOrder())));
+        rooms.sort(Comparator.comparing(Room::getId, Comparator.nullsLast(Comparator.naturalOrder())));
+
+        // Phân công giảng viên cùng lúc xếp lịch: lớp chưa có giảng viên chọn trong các ứng viên của AutoAssignService
+        Map<Long, List<Lecturer>> lecturerCandidates = options.isAssignLecturers()
+                ? autoAssignService.findLecturerCandidates(offerings)
+                : Map.of();
+        CompiledProblem problem = CompiledProblem.compile(offerings, rooms, lecturerCandidates, pinned);
+
+        // Dữ liệu chắc chắn không xếp được (VD: số lớp phòng PC > số phòng PC x 24 kíp) thì báo ngay, không chạy engine
+        if (options.isFeasibilityCheck()) {
+            FeasibilityAnalyzer.Report report = new FeasibilityAnalyzer(problem).analyze();
+            if (!report.feasible()) return "Infeasible: " + report + " | Engine: " + getName();
+        }
+
+        // Không truyền seed thì tự sinh, nhưng vẫn ghi lại để có thể chạy lại đúng lịch đó
+        long seed = options.getSeed() != null ? options.getSeed() : new SplittableRandom().nextLong();
+        SplittableRandom runRandom = new SplittableRandom(seed);
+
+        // Đếm trước khi tìm kiếm (lưu kết quả sẽ ghi đè lịch đang lưu)
+        String warmStartDetails = options.isWarmStart()
+                ? " | Warm start: reused " + persistedCount(problem) + "/" + problem.size
+                : "";
+
+        // Toàn bộ phần tìm kiếm chạy trong pool riêng của bộ xếp lịch (không dùng common ForkJoinPool)
+        EngineResult result = solverExecutors.compute(() -> solve(problem, options, termination, runRandom, monitor, null));
+
+        // Xếp phòng 2 pha: chốt lại phòng theo từng kíp trước khi lưu (với mọi engine). Lớp không ghép được
+        // giữ phòng cũ nên có thể sinh trùng phòng: chỉ nhận lịch ghép lại nếu không tệ hơn
+        Schedule best = result.best();
+        if (options.getRoomAssignment() == SolverOptions.RoomAssignmentMode.MATCHING) {
+            Schedule matched = new Schedule(problem);
+            matched.copyFrom(best);
+            new RoomMatcher(problem).assign(matched);
+            new FitnessEvaluator(problem).evaluate(matched);
+            if (matched.fitness >= best.fitness) best = matched;
+        }
+
+        // Sửa chính xác các vi phạm cứng còn sót (vài lớp) thay vì chạy thêm thế hệ
+        String repairDetails = "";
+        if (options.isRepair()) {
+            FitnessEvaluator evaluator = new FitnessEvaluator(problem);
+            evaluator.evaluate(best);
+            ConflictRepair.Outcome outcome = new ConflictRepair(problem, evaluator,
+                    options.getRepairMaxVariables(), options.getRepairMaxNodes()).repair(best);
+            repairDetails = " | Repair: " + outcome;
+        }
+
+        saveSchedule(best, problem, seed);
+        return "Best Fitness Score: " + best.fitness + " | Seed: " + seed + " | Engine: " + getName()
+                + result.details()
+                + repairDetails
+                + warmStartDetails
+                + (pinned.isEmpty() ? "" : " | Pinned: " + pinned.size())
+                + (monitor.isCancelRequested() ? " | Cancelled" : "");
+    }
+
+    // Lịch đang lưu trong DB (ngày, kíp, phòng); lớp chưa xếp hoặc dữ liệu không hợp lệ thì sinh ngẫu nhiên
+    Schedule persistedSchedule(CompiledProblem problem, FitnessEvaluator evaluator, SplittableRandom rnd) {
+        Map<Long, Integer> roomOrdinal = roomOrdinals(problem);
+        Schedule sch = new Schedule(problem);
+        for (int g = 0; g < problem.size; g++) {
+            int room = persistedRoom(problem, roomOrdinal, g);
+            if (room >= 0) {
+                CourseOffering off = problem.offerings.get(g);
+                sch.setGene(g, off.getDayOfWeek(), off.getStartPeriod(), room);
+                randomLecturer(sch, g, problem, rnd);
+            } else {
+                randomGene(sch, g, problem, rnd);
+            }
+        }
+        evaluator.evaluate(sch);
+        return sch;
+    }
+
+    // Số lớp dùng lại được lịch đang lưu khi khởi động ấm (ghi vào kết quả chạy)
+    private static int persistedCount(CompiledProblem problem) {
+        Map<Long, Integer> roomOrdinal = roomOrdinals(problem);
+        int reused = 0;
+        for (int g = 0; g < problem.size; g++) {
+            if (persistedRoom(problem, roomOrdinal, g) >= 0) reused++;
+        }
+        return reused;
+    }
+
+    private static Map<Long, Integer> roomOrdinals(CompiledProblem problem) {
+        Map<Long, Integer> roomOrdinal = new HashMap<>();
+        for (int r = 0; r < problem.rooms.length; r++) roomOrdinal.put(problem.rooms[r].getId(), r);
+        return roomOrdinal;
+    }
+
+    // Ordinal phòng đang lưu của lớp g nếu (ngày, kíp, phòng) đang lưu hợp lệ, ngược lại -1
+    private static int persistedRoom(CompiledProblem problem, Map<Long, Integer> roomOrdinal, int g) {
+        CourseOffering off = problem.offerings.get(g);
+        Integer day = off.getDayOfWeek();
+        Integer start = off.getStartPeriod();
+        Integer room = off.getRoom() != null ? roomOrdinal.get(off.getRoom().getId()) : null;
+        int lastDay = OccupancyGrid.FIRST_DAY + OccupancyGrid.DAYS - 1;
+        boolean valid = day != null && start != null && room != null
+                && day >= OccupancyGrid.FIRST_DAY && day <= lastDay
+                && start >= 1 && start + problem.descriptors[g].duration - 1 <= OccupancyGrid.PERIODS_PER_DAY;
+        return valid ? room : -1;
+    }
+
+    // Lời giải xuất phát của các engine quỹ đạo đơn (SA, Tabu):
+    // lịch đang lưu (warmStart), DSatur (initializer=DSATUR) hoặc ngẫu nhiên
+    Schedule initialSchedule(CompiledProblem problem, FitnessEvaluator evaluator, SolverOptions options,
+                             SplittableRandom rnd) {
+        if (options.isWarmStart()) return persistedSchedule(problem, evaluator, rnd);
+
+        Schedule sch = new Schedule(problem);
+        if (options.getInitializer() == SolverOptions.InitializerMode.DSATUR) {
+            new DSaturInitializer(problem).build(sch, rnd);
+        } else {
+            for (int g = 0; g < problem.size; g++) randomGene(sch, g, problem, rnd);
+        }
+        evaluator.evaluate(sch);
+        return sch;
+    }
+
+    // Ưu tiên gen đang vi phạm (bốc thử vài gen), không thấy thì lấy gen ngẫu nhiên
+    static int pickGene(CompiledProblem problem, FitnessEvaluator evaluator, Schedule current, SplittableRandom rnd) {
+        int g = rnd.nextInt(problem.size);
+        if (rnd.nextDouble() >= CONFLICT_PICK_RATE) return g;
+        for (int i = 0; i < CONFLICT_SAMPLES; i++) {
+            if (evaluator.inConflict(current, g)) return g;
+            g = rnd.nextInt(problem.size);
+        }
+        return g;
+    }
+
+    // Sinh ngẫu nhiên gen thứ g (ghi thẳng vào mảng của schedule, không tạo object)
+    static void randomGene(Schedule sch, int g, CompiledProblem problem, SplittableRandom rnd) {
+        OfferingDescriptor d = problem.descriptors[g];
+
+        // 1. Chọn ngày (Day)
+        int day;
+        // Quy chế: chỉ học từ Thứ 2 đến Thứ 7 (2-7), không xếp Chủ nhật
+        day = 2 + rnd.nextInt(6);
+
+        // 2. Chọn Kíp (Start Period) - TUÂN THỦ QUY CHẾ
+        int[] validSlots = d.online ? ONLINE_SLOTS : OFFLINE_SLOTS;
+        int start = validSlots[rnd.nextInt(validSlots.length)];
+
+        // 3. Chọn Phòng (Room) - tra chỉ mục phòng ứng viên dựng sẵn (đúng loại, đủ chỗ, đã tính fallback)
+        int[] candidates = d.roomCandidates;
+        int selectedRoom = candidates[rnd.nextInt(candidates.length)];
+
+        sch.setGene(g, day, start, selectedRoom);
+
+        // 4. Chọn Giảng viên (chỉ lớp GA tự phân công)
+        randomLecturer(sch, g, problem, rnd);
+    }
+
+    // Xếp phòng 2 pha: chỉ sinh lại (ngày, kíp) và giảng viên của gen g, giữ phòng (RoomMatcher ghép lại sau)
+    static void randomTime(Schedule sch, int g, CompiledProblem problem, SplittableRandom rnd) {
+        int day = 2 + rnd.nextInt(6);
+        int[] validSlots = problem.descriptors[g].online ? ONLINE_SLOTS : OFFLINE_SLOTS;
+        int start = validSlots[rnd.nextInt(validSlots.length)];
+        sch.setGene(g, day, start, sch.roomIdx[g]);
+        randomLecturer(sch, g, problem, rnd);
+    }
+
+    // Lớp có giảng viên ứng viên: chọn ngẫu nhiên 1 người (lớp khác giữ nguyên giảng viên đã phân)
+    static void randomLecturer(Schedule sch, int g, CompiledProblem problem, SplittableRandom rnd) {
+        int[] candidates = problem.descriptors[g].lecturerCandidates;
+        if (candidates.length > 0) sch.lecturer[g] = candidates[rnd.nextInt(candidates.length)];
+    }
+
+    // Chạy các tác vụ trong pool hiện tại và chờ tất cả kết thúc (không hủy tác vụ nào giữa chừng)
+    static void forkAndJoin(List<ForkJoinTask<?>> tasks, String failureMessage) {
+        tasks.forEach(ForkJoinTask::fork);
+        RuntimeException failure = null;
+        for (ForkJoinTask<?> task : tasks) {
+            task.quietlyJoin();
+            if (task.isCompletedAbnormally() && failure == null) {
+                failure = new IllegalStateException(failureMessage, task.getException());
+            }
+        }
+        if (failure != null) throw failure;
+    }
+
+    private void saveSchedule(Schedule best, CompiledProblem problem, long seed) {
+        List<CourseOffering> toSave = new ArrayList<>();
+        for (int g = 0; g < problem.size; g++) {
+            CourseOffering off = problem.offerings.get(g);
+            off.setDayOfWeek(best.day[g]);
+            off.setStartPeriod(best.startPeriod[g]);
+            off.setEndPeriod(best.startPeriod[g] + problem.descriptors[g].duration - 1);
+            off.setRoom(problem.rooms[best.roomIdx[g]]);
+            if (problem.descriptors[g].lecturerCandidates.length > 0) off.setLecturer(problem.lecturers[best.lecturer[g]]);
+
+            if (best.fitness >= -100) off.setStatus("SCHEDULED");
+            else off.setStatus("ERROR");
+
+            off.setStatusMessage(getName() + " Fitness: " + (int)best.fitness + " | Seed: " + seed);
+            toSave.add(off);
+        }
+        offeringRepo.saveAll(toSave);
+    }
+}
@@ -0,0 +1,71 @@
+package com.phenikaa.scheduler.core;
+
+/**
+ * Lời giải tốt nhất của các engine quỹ đạo đơn (SA, Tabu): chỉ giữ 4 mảng gen, không giữ bảng chiếm chỗ.
+ * Bản sao chỉ được chụp khi lời giải hiện tại sắp rời khỏi điểm tốt nhất (trước 1 nước đi làm xấu đi),
+ * không chụp ở mỗi lần cải thiện.
+ */
+final class BestSnapshot {
+
+    private final CompiledProblem problem;
+    private final FitnessEvaluator evaluator;
+    private final Schedule current;
+
+    private final int[] day;
+    private final int[] startPeriod;
+    private final int[] roomIdx;
+    private final int[] lecturer; // Giảng viên của lời giải tốt nhất (lời giải đầu / lời giải chung có thể khác mặc định)
+    double fitness;
+    private boolean atCurrent = true; // current đang chính là lời giải tốt nhất (bản sao chưa cập nhật)
+
+    BestSnapshot(CompiledProblem problem, FitnessEvaluator evaluator, Schedule current) {
+        this.problem = problem;
+        this.evaluator = evaluator;
+        this.current = current;
+        int n = problem.size;
+        this.day = new int[n];
+        this.startPeriod = new int[n];
+        this.roomIdx = new int[n];
+        this.lecturer = new int[n];
+        this.fitness = current.fitness;
+    }
+
+    // Lời giải hiện tại có đang là lời giải tốt nhất (bản sao chưa được chụp) không
+    boolean isCurrent() {
+        return atCurrent;
+    }
+
+    // Gọi TRƯỚC khi áp dụng 1 nước đi làm xấu đi
+    void beforeWorsening() {
+        if (!atCurrent) return;
+        System.arraycopy(current.day, 0, day, 0, day.length);
+        System.arraycopy(current.startPeriod, 0, startPeriod, 0, startPeriod.length);
+        System.arraycopy(current.roomIdx, 0, roomIdx, 0, roomIdx.length);
+        System.arraycopy(current.lecturer, 0, lecturer, 0, lecturer.length);
+        atCurrent = false;
+    }
+
+    // Gọi sau mỗi nước đi đã áp dụng; trả về true nếu vừa tìm được lời giải tốt hơn
+    boolean afterMove() {
+        if (current.fitness <= fitness) return false;
+        fitness = current.fitness;
+        atCurrent = true;
+        return true;
+    }
+
+    // Portfolio: gửi lời giải tốt nhất lên lời giải chung, và nhảy sang lời giải chung nếu nó tốt hơn
+    void share(SharedIncumbent shared) {
+        if (fitness > shared.fitness()) shared.offer(best());
+        if (shared.adoptInto(current, fitness)) afterMove();
+    }
+
+    // Lời giải tốt nhất dưới dạng Schedule đã chấm điểm (dựng lại từ bản sao nếu current đã rời khỏi nó)
+    Schedule best() {
+        if (atCurrent) return current;
+        Schedule sch = new Schedule(problem);
+        for (int g = 0; g < problem.size; g++) sch.setGene(g, day[g], startPeriod[g], roomIdx[g]);
+        System.arraycopy(lecturer, 0, sch.lecturer, 0, lecturer.length);
+        evaluator.evaluate(sch);
+        return sch;
+    }
+}
@@ -0,0 +1,331 @@
+package com.phenikaa.scheduler.core;
+
+import com.phenikaa.scheduler.model.CourseOffering;
+import com.phenikaa.scheduler.model.Lecturer;
+import com.phenikaa.scheduler.model.Room;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Dữ liệu bài toán của một lần chạy, đánh số lại theo thứ tự (ordinal) để GA làm việc trên mảng.
+ * Offering thứ i trong {@link #offerings} tương ứng với gen thứ i của {@link Schedule}.
+ */
+final class CompiledProblem {
+
+    final List<CourseOffering> offerings;
+    final Room[] rooms;
+    final int size;
+
+    // Lớp được ghim (CourseOffering.pinned): không nằm trong nhiễm sắc thể, chỉ là phần chiếm chỗ cố định.
+    // background: bảng chiếm chỗ (phòng / giảng viên / lớp biên chế / tải) của riêng các lớp này,
+    // là điểm xuất phát mỗi lần chấm điểm - trùng với lớp được ghim bị phạt như trùng giữa 2 lớp được xếp
+    final List<CourseOffering> pinned;
+    final OccupancyGrid background;
+
+    // Mô tả đã biên dịch của từng offering (cùng ordinal)
+    final OfferingDescriptor[] descriptors;
+    final int lecturerCount;
+    final int classCount;
+    final String[] classNames; // Mã lớp biên chế theo ordinal (dùng cho báo cáo)
+
+    // Phân công giảng viên cùng lúc xếp lịch: ứng viên theo id offering (rỗng: giữ giảng viên đã phân),
+    // giảng viên theo ordinal và ngưỡng tải mềm của từng người (null nếu không có lớp nào GA tự phân công)
+    final Map<Long, List<Lecturer>> lecturerCandidates;
+    final Lecturer[] lecturers;
+    final int[] lecturerLoadCap;
+    private final Map<Long, Integer> lecturerOrdinal;
+
+    // Thuộc tính phòng theo ordinal: bit loại phòng, sức chứa (null = không giới hạn), phòng ảo ONLINE
+    final long[] roomTypeMask;
+    final int[] roomCapacity;
+    final boolean[] roomVirtual;
+
+    private CompiledProblem(List<CourseOffering> offerings, Room[] rooms, OfferingDescriptor[] descriptors,
+                            List<CourseOffering> pinned, OccupancyGrid background,
+                            Map<Long, List<Lecturer>> lecturerCandidates, List<Lecturer> lecturers,
+                            Map<Long, Integer> lecturerOrdinal, String[] classNames, long[] roomTypeMask,
+                            CompiledProblem source) {
+        this.offerings = offerings;
+        this.rooms = rooms;
+        this.size = offerings.size();
+        this.pinned = pinned;
+        this.background = background;
+        this.descriptors = descriptors;
+        this.lecturerCount = lecturers.size();
+        this.classCount = classNames.length;
+        this.classNames = classNames;
+        this.lecturerCandidates = lecturerCandidates;
+        this.lecturers = lecturers.toArray(new Lecturer[0]);
+        this.lecturerOrdinal = lecturerOrdinal;
+        this.lecturerLoadCap = source != null ? inheritLoadCaps(source) : loadCaps(descriptors, background, lecturerCount);
+        this.roomTypeMask = roomTypeMask;
+        this.roomCapacity = new int[rooms.length];
+        this.roomVirtual = new boolean[rooms.length];
+        for (int r = 0; r < rooms.length; r++) {
+            roomCapacity[r] = rooms[r].getCapacity() != null ? rooms[r].getCapacity() : Integer.MAX_VALUE;
+            // Phòng ONLINE là phòng ảo, không tính trùng phòng
+            roomVirtual[r] = "ONLINE".equalsIgnoreCase(rooms[r].getType());
+        }
+    }
+
+    static CompiledProblem compile(List<CourseOffering> offerings, List<Room> rooms) {
+        return compile(offerings, rooms, Map.of(), List.of());
+    }
+
+    // lecturerCandidates: với lớp chưa có giảng viên, các giảng viên GA được chọn (theo id offering).
+    // pinned: các lớp được ghim (isPinned), chiếm chỗ cố định và không được xếp lại
+    static CompiledProblem compile(List<CourseOffering> offerings, List<Room> rooms,
+                                   Map<Long, List<Lecturer>> lecturerCandidates, List<CourseOffering> pinned) {
+        return compile(offerings, rooms, lecturerCandidates, pinned, null);
+    }
+
+    // source: bài toán gốc khi offerings là 1 thành phần tách ra từ nó (null nếu không phải).
+    // Bài toán con dùng ngưỡng tải của bài toán gốc để điểm từng phần cộng lại đúng bằng điểm toàn bài
+    static CompiledProblem compile(List<CourseOffering> offerings, List<Room> rooms,
+                                   Map<Long, List<Lecturer>> lecturerCandidates, List<CourseOffering> pinned,
+                                   CompiledProblem source) {
+        int n = offerings.size();
+        Room[] roomArray = rooms.toArray(new Room[0]);
+
+        Map<Long, Integer> ordinalById = new HashMap<>();
+        for (int i = 0; i < n; i++) {
+            ordinalById.put(offerings.get(i).getId(), i);
+        }
+
+        // Ràng buộc cha - con với lớp được ghim: ghi lại giờ học của lớp ghim vào phía lớp được xếp
+        Map<Long, CourseOffering> pinnedById = new HashMap<>();
+        for (CourseOffering off : pinned) pinnedById.put(off.getId(), off);
+        List<List<Integer>> pinnedRelatives = new ArrayList<>();
+        for (int i = 0; i < n; i++) pinnedRelatives.add(new ArrayList<>());
+        for (CourseOffering off : pinned) {
+            Integer child = off.getParent() != null ? ordinalById.get(off.getParent().getId()) : null;
+            if (child != null) addPinnedTime(pinnedRelatives.get(child), off);
+        }
+        for (int i = 0; i < n; i++) {
+            CourseOffering p = offerings.get(i).getParent();
+            CourseOffering pinnedParent = p != null ? pinnedById.get(p.getId()) : null;
+            if (pinnedParent != null) addPinnedTime(pinnedRelatives.get(i), pinnedParent);
+        }
+
+        int[] parent = new int[n];
+        for (int i = 0; i < n; i++) {
+            CourseOffering p = offerings.get(i).getParent();
+            Integer idx = p != null ? ordinalById.get(p.getId()) : null;
+            parent[i] = idx != null ? idx : -1;
+        }
+        int[][] children = invert(parent);
+
+        // Intern loại phòng (đã chuẩn hóa) thành bit
+        Map<String, Long> typeBit = new HashMap<>();
+        long[] roomTypeMask = new long[roomArray.length];
+        for (int r = 0; r < roomArray.length; r++) {
+            String type = normalizeRoomType(roomArray[r].getType());
+            if (!typeBit.containsKey(type) && typeBit.size() == Long.SIZE) {
+                throw new IllegalStateException("Too many distinct room types (max " + Long.SIZE + ")");
+            }
+            roomTypeMask[r] = typeBit.computeIfAbsent(type, t -> 1L << typeBit.size());
+        }
+
+        Map<Long, Integer> lecturerOrdinal = new HashMap<>();
+        List<Lecturer> lecturers = new ArrayList<>();
+        Map<String, Integer> classOrdinal = new HashMap<>();
+        RoomCandidateIndex roomIndex = new RoomCandidateIndex(roomArray);
+
+        OfferingDescriptor[] descriptors = new OfferingDescriptor[n];
+        for (int i = 0; i < n; i++) {
+            CourseOffering off = offerings.get(i);
+
+            Set<String> allowedTypes = getAllowedRoomTypes(off);
+            long allowedMask = 0;
+            for (String type : allowedTypes) allowedMask |= typeBit.getOrDefault(type, 0L);
+
+            int plannedSize = off.getPlannedSize() != null ? off.getPlannedSize() : 0;
+
+            int lecturer = off.getLecturer() != null ? intern(off.getLecturer(), lecturerOrdinal, lecturers) : -1;
+            List<Lecturer> candidates = off.getLecturer() == null
+                    ? lecturerCandidates.getOrDefault(off.getId(), List.of())
+                    : List.of();
+            int[] lecturerChoices = new int[candidates.size()];
+            for (int k = 0; k < lecturerChoices.length; k++) {
+                lecturerChoices[k] = intern(candidates.get(k), lecturerOrdinal, lecturers);
+            }
+
+            int[] classes = internClasses(off, classOrdinal);
+
+            descriptors[i] = new OfferingDescriptor(
+                    isOnlineCourse(off),
+                    allowedMask,
+                    plannedSize,
+                    getSessionDuration(off),
+                    lecturer,
+                    lecturerChoices,
+                    classes,
+                    parent[i],
+                    children[i],
+                    pinnedRelatives.get(i).stream().mapToInt(Integer::intValue).toArray(),
+                    roomIndex.candidates(allowedTypes, plannedSize));
+        }
+
+        // Lớp được ghim: intern giảng viên / lớp biên chế trước (để bảng đủ kích thước), rồi đặt vào bảng nền
+        int[] pinnedLecturers = new int[pinned.size()];
+        int[][] pinnedClasses = new int[pinned.size()][];
+        for (int k = 0; k < pinned.size(); k++) {
+            CourseOffering off = pinned.get(k);
+            pinnedLecturers[k] = off.getLecturer() != null ? intern(off.getLecturer(), lecturerOrdinal, lecturers) : -1;
+            pinnedClasses[k] = internClasses(off, classOrdinal);
+        }
+        Map<Long, Integer> roomOrdinal = new HashMap<>();
+        for (int r = 0; r < roomArray.length; r++) roomOrdinal.put(roomArray[r].getId(), r);
+        OccupancyGrid background = new OccupancyGrid(roomArray.length, lecturers.size(), classOrdinal.size());
+        for (int k = 0; k < pinned.size(); k++) {
+            CourseOffering off = pinned.get(k);
+            Integer room = roomOrdinal.get(off.getRoom().getId());
+            boolean physicalRoom = room != null && !"ONLINE".equalsIgnoreCase(roomArray[room].getType());
+            if (pinnedLecturers[k] >= 0) background.addLoad(pinnedLecturers[k]);
+            for (int period = off.getStartPeriod(); period <= pinnedEnd(off); period++) {
+                int slot = OccupancyGrid.slot(off.getDayOfWeek(), period);
+                if (physicalRoom) background.addRoom(slot, room);
+                if (pinnedLecturers[k] >= 0) background.addLecturer(slot, pinnedLecturers[k]);
+                for (int cls : pinnedClasses[k]) background.addClass(slot, cls);
+            }
+        }
+
+        String[] classNames = new String[classOrdinal.size()];
+        classOrdinal.forEach((name, ordinal) -> classNames[ordinal] = name);
+
+        return new CompiledProblem(List.copyOf(offerings), roomArray, descriptors, List.copyOf(pinned), background,
+                lecturerCandidates, lecturers, lecturerOrdinal, classNames, roomTypeMask, source);
+    }
+
+    // Lớp được ghim: cờ pinned bật và đã có đủ ngày, tiết bắt đầu, phòng hợp lệ (thiếu thì vẫn xếp như lớp thường)
+    static boolean isPinned(CourseOffering off) {
+        if (!Boolean.TRUE.equals(off.getPinned())) return false;
+        Integer day = off.getDayOfWeek();
+        Integer start = off.getStartPeriod();
+        int lastDay = OccupancyGrid.FIRST_DAY + OccupancyGrid.DAYS - 1;
+        return day != null && start != null && off.getRoom() != null
+                && day >= OccupancyGrid.FIRST_DAY && day <= lastDay
+                && start >= 1 && start + getSessionDuration(off) - 1 <= OccupancyGrid.PERIODS_PER_DAY;
+    }
+
+    // Tiết cuối của lớp được ghim: theo số tiết của 1 buổi (endPeriod lưu trong DB có thể đã cũ)
+    private static int pinnedEnd(CourseOffering off) {
+        return off.getStartPeriod() + getSessionDuration(off) - 1;
+    }
+
+    private static void addPinnedTime(List<Integer> times, CourseOffering off) {
+        times.add(off.getDayOfWeek());
+        times.add(off.getStartPeriod());
+        times.add(pinnedEnd(off));
+    }
+
+    // Intern mã lớp biên chế: "K17-CNTT1; K17-CNTT2" -> [0, 1] (giữ nguyên cách split/trim khi chấm điểm)
+    private static int[] internClasses(CourseOffering off, Map<String, Integer> classOrdinal) {
+        if (off.getTargetClasses() == null) return new int[0];
+        String[] parts = off.getTargetClasses().split(";");
+        int[] classes = new int[parts.length];
+        for (int k = 0; k < parts.length; k++) {
+            classes[k] = classOrdinal.computeIfAbsent(parts[k].trim(), c -> classOrdinal.size());
+        }
+        return classes;
+    }
+
+    // Ordinal của giảng viên trong bài toán này (-1 nếu không xuất hiện)
+    int lecturerOrdinal(Lecturer lecturer) {
+        return lecturerOrdinal.getOrDefault(lecturer.getId(), -1);
+    }
+
+    private static int intern(Lecturer lecturer, Map<Long, Integer> ordinals, List<Lecturer> lecturers) {
+        return ordinals.computeIfAbsent(lecturer.getId(), id -> {
+            lecturers.add(lecturer);
+            return lecturers.size() - 1;
+        });
+    }
+
+    // Ngưỡng tải mềm: chia đều tổng số lớp cho các giảng viên của bài toán, nhưng không thấp hơn số lớp
+    // đã phân cứng cho người đó (phần tải cố định không bị phạt, chỉ phạt phần GA tự phân thêm).
+    // Lớp được ghim tính vào tải cố định (background đã đếm sẵn).
+    private static int[] loadCaps(OfferingDescriptor[] descriptors, OccupancyGrid background, int lecturerCount) {
+        int[] fixedLoad = new int[lecturerCount];
+        int total = 0;
+        for (int l = 0; l < lecturerCount; l++) {
+            fixedLoad[l] = background.load(l);
+            total += fixedLoad[l];
+        }
+        boolean chosen = false;
+        for (OfferingDescriptor d : descriptors) {
+            if (d.lecturer >= 0) fixedLoad[d.lecturer]++;
+            if (d.lecturer >= 0 || d.lecturerCandidates.length > 0) total++;
+            chosen |= d.lecturerCandidates.length > 0;
+        }
+        if (!chosen) return null;
+
+        int fairShare = (total + lecturerCount - 1) / lecturerCount;
+        int[] caps = new int[lecturerCount];
+        for (int l = 0; l < lecturerCount; l++) caps[l] = Math.max(fixedLoad[l], fairShare);
+        return caps;
+    }
+
+    // Ngưỡng tải của bài toán gốc theo ordinal giảng viên của bài toán này (giảng viên của bài toán con đều
+    // có trong bài toán gốc; ProblemDecomposer gom mọi lớp của 1 giảng viên vào cùng 1 thành phần)
+    private int[] inheritLoadCaps(CompiledProblem source) {
+        if (source.lecturerLoadCap == null) return null;
+        int[] caps = new int[lecturerCount];
+        for (int l = 0; l < lecturerCount; l++) caps[l] = source.lecturerLoadCap[source.lecturerOrdinal(lecturers[l])];
+        return caps;
+    }
+
+    // Phòng r có đúng loại cho offering không
+    boolean roomTypeAllowed(OfferingDescriptor d, int r) {
+        return (d.allowedRoomTypes & roomTypeMask[r]) != 0;
+    }
+
+    private static int[][] invert(int[] parent) {
+        int[] counts = new int[parent.length];
+        for (int p : parent) if (p >= 0) counts[p]++;
+        int[][] children = new int[parent.length][];
+        for (int i = 0; i < parent.length; i++) children[i] = new int[counts[i]];
+        for (int c = 0; c < parent.length; c++) {
+            int p = parent[c];
+            if (p >= 0) children[p][--counts[p]] = c;
+        }
+        return children;
+    }
+
+    // --- QUY CHẾ (dùng chung cho sinh gen & chấm điểm) ---
+    static boolean isOnlineCourse(CourseOffering off) {
+        String type = off.getClassType() != null ? off.getClassType().toUpperCase() : "";
+        String name = off.getCourse().getName().toUpperCase();
+        return type.equals("ELN") || type.equals("COURSERA") 
+            || name.contains("COURSERA") || Boolean.TRUE.equals(off.getCourse().getIsOnline());
+    }
+
+    static Set<String> getAllowedRoomTypes(CourseOffering off) {
+        if (isOnlineCourse(off)) return Set.of("ONLINE");
+
+        String required = off.getRequiredRoomType();
+        if (required != null && !required.trim().isEmpty()) {
+            return Set.of(normalizeRoomType(required));
+        }
+
+        // Default rules when not forced:
+        // - TH: allow LAB or PC
+        // - Others (LT/ALL): allow THEORY or HALL
+        if ("TH".equalsIgnoreCase(off.getClassType())) return Set.of("LAB", "PC");
+        return Set.of("THEORY", "HALL");
+    }
+
+    static String normalizeRoomType(String type) {
+        if (type == null) return "";
+        return type.trim().toUpperCase();
+    }
+
+    static int getSessionDuration(CourseOffering off) {
+        // Quy chế kíp học: mọi lớp đều học theo 1 kíp = 3 tiết
+        return 3;
+    }
+}
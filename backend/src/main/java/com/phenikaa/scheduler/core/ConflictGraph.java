@@ -0,0 +1,89 @@
+package com.phenikaa.scheduler.core;
+
+import java.util.Arrays;
+import java.util.function.IntFunction;
+
+/**
+ * Đồ thị xung đột giữa các lớp học phần: 2 lớp kề nhau nếu chung giảng viên, chung lớp biên chế
+ * hoặc là cặp cha - con (không được học cùng giờ). Lớp tự phân công giảng viên kề với lớp của mọi giảng viên
+ * ứng viên (có thể trùng với bất kỳ ai trong số đó). Lưu dạng CSR (mảng phẳng), láng giềng không lặp.
+ * Dựng 1 lần và chỉ đọc nên dùng chung được cho nhiều luồng.
+ */
+final class ConflictGraph {
+
+    private final int[] offsets;   // Láng giềng của g: neighbours[offsets[g] .. offsets[g + 1])
+    private final int[] neighbours;
+
+    private ConflictGraph(int[] offsets, int[] neighbours) {
+        this.offsets = offsets;
+        this.neighbours = neighbours;
+    }
+
+    static ConflictGraph of(CompiledProblem problem) {
+        int n = problem.size;
+        int[][] lecturerOfferings = group(n, problem.lecturerCount, g -> lecturerKeys(problem.descriptors[g]));
+        int[][] classOfferings = group(n, problem.classCount, g -> problem.descriptors[g].classes);
+
+        // 2 lượt: đếm rồi ghi. Láng giềng đã gặp được đánh "tem" g + 1 nên không phải xóa mảng giữa các lớp
+        int[] stamp = new int[n];
+        int[] offsets = new int[n + 1];
+        for (int g = 0; g < n; g++) {
+            offsets[g + 1] = offsets[g] + collect(problem, lecturerOfferings, classOfferings, g, stamp, null, 0);
+        }
+        Arrays.fill(stamp, 0);
+        int[] neighbours = new int[offsets[n]];
+        for (int g = 0; g < n; g++) {
+            collect(problem, lecturerOfferings, classOfferings, g, stamp, neighbours, offsets[g]);
+        }
+        return new ConflictGraph(offsets, neighbours);
+    }
+
+    // Ghi láng giềng của g vào out từ vị trí from (out = null: chỉ đếm), trả về số láng giềng
+    private static int collect(CompiledProblem problem, int[][] lecturerOfferings, int[][] classOfferings,
+                               int g, int[] stamp, int[] out, int from) {
+        OfferingDescriptor d = problem.descriptors[g];
+        stamp[g] = g + 1;
+        int fill = from;
+        for (int l : lecturerKeys(d)) fill = add(lecturerOfferings[l], g, stamp, out, fill);
+        for (int cls : d.classes) fill = add(classOfferings[cls], g, stamp, out, fill);
+        if (d.parent >= 0) fill = add(new int[]{d.parent}, g, stamp, out, fill);
+        fill = add(d.children, g, stamp, out, fill);
+        return fill - from;
+    }
+
+    private static int add(int[] candidates, int g, int[] stamp, int[] out, int fill) {
+        for (int h : candidates) {
+            if (stamp[h] == g + 1) continue;
+            stamp[h] = g + 1;
+            if (out != null) out[fill] = h;
+            fill++;
+        }
+        return fill;
+    }
+
+    // Giảng viên có thể dạy lớp: giảng viên đã phân, hoặc các ứng viên nếu lớp tự phân công
+    static int[] lecturerKeys(OfferingDescriptor d) {
+        if (d.lecturer >= 0) return new int[]{d.lecturer};
+        return d.lecturerCandidates;
+    }
+
+    int degree(int g) {
+        return offsets[g + 1] - offsets[g];
+    }
+
+    // Láng giềng thứ i của g (0 <= i < degree(g))
+    int neighbour(int g, int i) {
+        return neighbours[offsets[g] + i];
+    }
+
+    // Nhóm các lớp học phần theo khóa (giảng viên / lớp biên chế): khóa -> các ordinal có khóa đó
+    static int[][] group(int n, int keyCount, IntFunction<int[]> keysOf) {
+        int[] counts = new int[keyCount];
+        for (int g = 0; g < n; g++) for (int k : keysOf.apply(g)) counts[k]++;
+        int[][] groups = new int[keyCount][];
+        for (int k = 0; k < keyCount; k++) groups[k] = new int[counts[k]];
+        int[] fill = new int[keyCount];
+        for (int g = 0; g < n; g++) for (int k : keysOf.apply(g)) groups[k][fill[k]++] = g;
+        return groups;
+    }
+}
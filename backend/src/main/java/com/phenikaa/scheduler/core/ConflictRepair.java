@@ -0,0 +1,408 @@
+package com.phenikaa.scheduler.core;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Sửa chính xác các vi phạm cứng còn sót sau khi engine dừng (repair=true): lấy các lớp đang vi phạm cùng
+ * láng giềng gần của chúng trên đồ thị xung đột (tối đa maxVariables lớp) làm biến, mọi lớp khác giữ nguyên,
+ * rồi tìm (ngày, kíp, phòng) không vi phạm cứng cho các biến bằng quay lui có lan truyền ràng buộc
+ * (forward checking) và nhảy lùi theo tập xung đột (conflict-directed backjumping), chọn biến ít giá trị nhất trước.
+ * Miền giá trị chỉ gồm kíp đúng quy chế (như randomGene) và phòng đúng loại, đủ chỗ, không trùng lớp cố định.
+ * Tìm được thì áp dụng (fitness chỉ có thể tốt lên); hết giá trị hoặc hết số nút cho phép thì giữ nguyên lịch.
+ */
+final class ConflictRepair {
+
+    // Tập xung đột lưu dạng bitmask long theo tầng gán nên tối đa 64 biến
+    static final int MAX_VARIABLES = Long.SIZE;
+
+    // Kíp t = (day - 2) * 5 + vị trí tiết trong START_PERIODS (Thứ 2 - Thứ 7, không xếp Chủ nhật)
+    private static final int[] START_PERIODS = {1, 4, 7, 10, 13};
+    private static final int FIRST_DAY = 2;
+    private static final int TIMES = 6 * START_PERIODS.length;
+
+    // Kết quả: số lớp vi phạm trước / sau khi sửa, số lượt tìm và tổng số nút đã duyệt
+    record Outcome(int conflictsBefore, int conflictsAfter, int rounds, long nodes) {
+        boolean solved() {
+            return conflictsAfter == 0;
+        }
+
+        @Override
+        public String toString() {
+            return "conflicting offerings " + conflictsBefore + " -> " + conflictsAfter
+                    + " | Rounds: " + rounds + " | Nodes: " + nodes;
+        }
+    }
+
+    private final CompiledProblem problem;
+    private final FitnessEvaluator evaluator;
+    private final ConflictGraph graph;
+    private final int maxVariables;
+    private final long maxNodes;
+
+    ConflictRepair(CompiledProblem problem, FitnessEvaluator evaluator, int maxVariables, long maxNodes) {
+        this.problem = problem;
+        this.evaluator = evaluator;
+        this.graph = ConflictGraph.of(problem);
+        this.maxVariables = Math.max(1, Math.min(maxVariables, MAX_VARIABLES));
+        this.maxNodes = maxNodes;
+    }
+
+    // schedule phải đã được chấm điểm; được sửa tại chỗ (fitness cập nhật tăng dần qua moveGene).
+    // Mỗi lượt sửa tối đa maxVariables lớp quanh các lớp còn vi phạm; lượt không tìm được lời giải thì bỏ qua
+    // các lớp vi phạm của lượt đó ở các lượt sau. Dừng khi hết vi phạm, hết lớp để thử hoặc hết số nút.
+    Outcome repair(Schedule schedule) {
+        boolean[] skipped = new boolean[problem.size];
+        int before = conflicting(schedule, skipped).size();
+        int rounds = 0;
+        long nodes = 0;
+        while (nodes < maxNodes) {
+            List<Integer> conflicting = conflicting(schedule, skipped);
+            if (conflicting.isEmpty()) break;
+
+            int[] variables = neighbourhood(conflicting);
+            Search search = new Search(schedule, variables, maxNodes - nodes);
+            boolean solved = search.run();
+            rounds++;
+            nodes += search.nodes;
+            if (solved) {
+                for (int u = 0; u < variables.length; u++) {
+                    int t = search.assigned[u] / search.candidates[u].length;
+                    int room = search.candidates[u][search.assigned[u] % search.candidates[u].length];
+                    evaluator.moveGene(schedule, variables[u], dayOf(t), startOf(t), room);
+                }
+            }
+            // Lớp vẫn còn vi phạm sau lượt này (không tìm được, hoặc vi phạm tự thân như lớp biên chế lặp
+            // trong targetClasses) thì không thử lại
+            for (int g : conflicting.subList(0, Math.min(conflicting.size(), maxVariables))) {
+                if (!solved || evaluator.inConflict(schedule, g)) skipped[g] = true;
+            }
+        }
+        evaluator.markConflicts(schedule);
+        return new Outcome(before, conflicting(schedule, new boolean[problem.size]).size(), rounds, nodes);
+    }
+
+    private List<Integer> conflicting(Schedule schedule, boolean[] skipped) {
+        List<Integer> conflicting = new ArrayList<>();
+        for (int g = 0; g < problem.size; g++) {
+            if (!skipped[g] && evaluator.inConflict(schedule, g)) conflicting.add(g);
+        }
+        return conflicting;
+    }
+
+    // Các lớp vi phạm trước, rồi láng giềng theo BFS trên đồ thị xung đột cho tới khi đủ maxVariables
+    private int[] neighbourhood(List<Integer> conflicting) {
+        boolean[] taken = new boolean[problem.size];
+        int[] queue = new int[problem.size];
+        int size = 0;
+        for (int g : conflicting) {
+            if (size == maxVariables) break;
+            taken[g] = true;
+            queue[size++] = g;
+        }
+        for (int head = 0; head < size && size < maxVariables; head++) {
+            int g = queue[head];
+            for (int i = 0; i < graph.degree(g) && size < maxVariables; i++) {
+                int h = graph.neighbour(g, i);
+                if (taken[h]) continue;
+                taken[h] = true;
+                queue[size++] = h;
+            }
+        }
+        return Arrays.copyOf(queue, size);
+    }
+
+    private static int dayOf(int t) {
+        return FIRST_DAY + t / START_PERIODS.length;
+    }
+
+    private static int startOf(int t) {
+        return START_PERIODS[t % START_PERIODS.length];
+    }
+
+    // Trạng thái tìm kiếm FC-CBJ: biến u (lớp variables[u]) nhận giá trị t * |candidates[u]| + k = (kíp t, phòng k)
+    private final class Search {
+        private final Schedule schedule;
+        private final int[] variables;
+        private final int m;
+        private final int[][] candidates;  // Phòng ứng viên đúng loại, đủ chỗ (tăng dần)
+        private final boolean[][] alive;   // Giá trị còn trong miền
+        private final int[] count;         // Số giá trị còn lại
+        private final boolean[][] linked;  // Không được học cùng giờ (chung giảng viên / lớp biên chế / cha - con)
+        private final int[] assigned;      // Giá trị đã gán (-1: chưa gán)
+
+        // Theo tầng gán
+        private final int[] order;         // Biến được gán ở tầng
+        private final int[] cursor;        // Số giá trị đã thử của biến ở tầng
+        private final long[] confSet;      // Các tầng trước gây ra thất bại của tầng này
+        private final int[] trailStart;    // Vị trí đầu trong nhật ký tỉa của tầng
+
+        private final long[] pastFc;       // Theo biến: các tầng đã tỉa miền của biến
+        private int[] trailVar = new int[64];
+        private int[] trailValue = new int[64];
+        private int trailSize;
+        private final long maxNodes;
+        long nodes;
+
+        Search(Schedule schedule, int[] variables, long maxNodes) {
+            this.schedule = schedule;
+            this.maxNodes = maxNodes;
+            this.variables = variables;
+            this.m = variables.length;
+            this.candidates = new int[m][];
+            this.alive = new boolean[m][];
+            this.count = new int[m];
+            this.linked = new boolean[m][m];
+            this.assigned = new int[m];
+            this.order = new int[m];
+            this.cursor = new int[m];
+            this.confSet = new long[m];
+            this.trailStart = new int[m];
+            this.pastFc = new long[m];
+            Arrays.fill(assigned, -1);
+
+            int[] variableOf = new int[problem.size];
+            Arrays.fill(variableOf, -1);
+            for (int u = 0; u < m; u++) variableOf[variables[u]] = u;
+            OccupancyGrid fixed = fixedGrid(schedule, variableOf);
+
+            for (int u = 0; u < m; u++) {
+                int g = variables[u];
+                OfferingDescriptor d = problem.descriptors[g];
+                candidates[u] = Arrays.stream(d.roomCandidates)
+                        .filter(r -> problem.roomTypeAllowed(d, r) && problem.roomCapacity[r] >= d.plannedSize)
+                        .toArray();
+                int nc = candidates[u].length;
+                alive[u] = new boolean[TIMES * nc];
+                for (int t = 0; t < TIMES; t++) {
+                    if (!allowed(d, t) || !timeFree(schedule, fixed, g, variableOf, t)) continue;
+                    for (int k = 0; k < nc; k++) {
+                        if (roomFree(fixed, candidates[u][k], t, d.duration)) {
+                            alive[u][t * nc + k] = true;
+                            count[u]++;
+                        }
+                    }
+                }
+                for (int w = 0; w < m; w++) linked[u][w] = w != u && mustNotOverlap(schedule, g, variables[w]);
+            }
+        }
+
+        boolean run() {
+            for (int u = 0; u < m; u++) if (count[u] == 0) return false;
+
+            int level = 0;
+            order[0] = select();
+            while (true) {
+                int u = order[level];
+                int size = alive[u].length;
+                int first = firstValue(u);
+                boolean advanced = false;
+                while (cursor[level] < size && nodes < maxNodes) {
+                    int value = (first + cursor[level]++) % size;
+                    if (!alive[u][value]) continue;
+                    nodes++;
+                    if (assign(level, u, value)) {
+                        advanced = true;
+                        break;
+                    }
+                }
+                if (nodes >= maxNodes && !advanced) return false;
+
+                if (advanced) {
+                    if (level + 1 == m) return true;
+                    level++;
+                    order[level] = select();
+                    cursor[level] = 0;
+                    confSet[level] = 0;
+                    continue;
+                }
+
+                // Hết giá trị: nhảy về tầng gần nhất trong tập xung đột (không có thì vô nghiệm)
+                long mask = (confSet[level] | pastFc[u]) & ((1L << level) - 1);
+                if (mask == 0) return false;
+                int h = 63 - Long.numberOfLeadingZeros(mask);
+                confSet[h] |= mask & ~(1L << h);
+                for (int l = level; l > h; l--) {
+                    if (l < level) unassign(l);
+                    cursor[l] = 0;
+                    confSet[l] = 0;
+                }
+                unassign(h);
+                level = h;
+            }
+        }
+
+        // Ưu tiên giữ nguyên (ngày, kíp, phòng) hiện tại nếu còn hợp lệ, sau đó duyệt vòng tròn từ đó
+        private int firstValue(int u) {
+            int g = variables[u];
+            int nc = candidates[u].length;
+            int start = Arrays.binarySearch(START_PERIODS, schedule.startPeriod[g]);
+            int day = schedule.day[g];
+            if (start < 0 || day < FIRST_DAY || day >= FIRST_DAY + TIMES / START_PERIODS.length) return 0;
+            int t = (day - FIRST_DAY) * START_PERIODS.length + start;
+            int k = Arrays.binarySearch(candidates[u], schedule.roomIdx[g]);
+            return t * nc + Math.max(k, 0);
+        }
+
+        // Biến chưa gán có ít giá trị nhất (hòa: nhiều ràng buộc với biến khác hơn)
+        private int select() {
+            int best = -1, bestCount = Integer.MAX_VALUE, bestDegree = -1;
+            for (int u = 0; u < m; u++) {
+                if (assigned[u] >= 0 || (best >= 0 && count[u] > bestCount)) continue;
+                int degree = 0;
+                for (int w = 0; w < m; w++) if (linked[u][w] && assigned[w] < 0) degree++;
+                if (count[u] < bestCount || degree > bestDegree) {
+                    best = u;
+                    bestCount = count[u];
+                    bestDegree = degree;
+                }
+            }
+            return best;
+        }
+
+        // Gán u = value ở tầng level và tỉa miền các biến chưa gán; miền nào rỗng thì hoàn tác và trả về false
+        private boolean assign(int level, int u, int value) {
+            trailStart[level] = trailSize;
+            int nc = candidates[u].length;
+            int t = value / nc;
+            int room = candidates[u][value % nc];
+            boolean physicalRoom = !problem.roomVirtual[room];
+            int duration = problem.descriptors[variables[u]].duration;
+
+            for (int w = 0; w < m; w++) {
+                if (w == u || assigned[w] >= 0) continue;
+                int wc = candidates[w].length;
+                int wDuration = problem.descriptors[variables[w]].duration;
+                int k = physicalRoom ? Arrays.binarySearch(candidates[w], room) : -1;
+                boolean pruned = false;
+                for (int t2 = 0; t2 < TIMES; t2++) {
+                    if (!overlaps(t, duration, t2, wDuration)) continue;
+                    if (linked[u][w]) {
+                        for (int j = 0; j < wc; j++) pruned |= prune(w, t2 * wc + j);
+                    } else if (k >= 0) {
+                        pruned |= prune(w, t2 * wc + k);
+                    }
+                }
+                if (pruned) pastFc[w] |= 1L << level;
+                if (count[w] == 0) {
+                    confSet[level] |= pastFc[w];
+                    undo(level);
+                    return false;
+                }
+            }
+            assigned[u] = value;
+            return true;
+        }
+
+        private boolean prune(int w, int value) {
+            if (!alive[w][value]) return false;
+            alive[w][value] = false;
+            count[w]--;
+            if (trailSize == trailVar.length) {
+                trailVar = Arrays.copyOf(trailVar, trailSize * 2);
+                trailValue = Arrays.copyOf(trailValue, trailSize * 2);
+            }
+            trailVar[trailSize] = w;
+            trailValue[trailSize++] = value;
+            return true;
+        }
+
+        private void unassign(int level) {
+            undo(level);
+            assigned[order[level]] = -1;
+        }
+
+        // Khôi phục mọi giá trị bị tỉa ở tầng level
+        private void undo(int level) {
+            while (trailSize > trailStart[level]) {
+                trailSize--;
+                alive[trailVar[trailSize]][trailValue[trailSize]] = true;
+                count[trailVar[trailSize]]++;
+            }
+            long keep = ~(1L << level);
+            for (int w = 0; w < m; w++) pastFc[w] &= keep;
+        }
+    }
+
+    // Kíp t có đúng quy chế của lớp không (online: kíp tối, offline: kíp ngày - như randomGene)
+    private static boolean allowed(OfferingDescriptor d, int t) {
+        int[] starts = d.online ? AbstractSchedulingEngine.ONLINE_SLOTS : AbstractSchedulingEngine.OFFLINE_SLOTS;
+        return Arrays.binarySearch(starts, startOf(t)) >= 0;
+    }
+
+    private static boolean overlaps(int t1, int duration1, int t2, int duration2) {
+        if (dayOf(t1) != dayOf(t2)) return false;
+        int s1 = startOf(t1), s2 = startOf(t2);
+        return s1 <= s2 + duration2 - 1 && s2 <= s1 + duration1 - 1;
+    }
+
+    private static boolean overlaps(int day1, int start1, int duration1, int day2, int start2, int duration2) {
+        return day1 == day2 && start1 <= start2 + duration2 - 1 && start2 <= start1 + duration1 - 1;
+    }
+
+    // Bảng chiếm chỗ của phần cố định: lớp được ghim + mọi lớp không phải biến (không cần tải giảng viên)
+    private OccupancyGrid fixedGrid(Schedule schedule, int[] variableOf) {
+        OccupancyGrid grid = new OccupancyGrid(problem.rooms.length, problem.lecturerCount, problem.classCount);
+        grid.copyFrom(problem.background);
+        for (int g = 0; g < problem.size; g++) {
+            if (variableOf[g] >= 0) continue;
+            OfferingDescriptor d = problem.descriptors[g];
+            int room = schedule.roomIdx[g];
+            int lecturer = schedule.lecturer[g];
+            for (int p = 0; p < d.duration; p++) {
+                int slot = OccupancyGrid.slot(schedule.day[g], schedule.startPeriod[g] + p);
+                if (!problem.roomVirtual[room]) grid.addRoom(slot, room);
+                if (lecturer >= 0) grid.addLecturer(slot, lecturer);
+                for (int cls : d.classes) grid.addClass(slot, cls);
+            }
+        }
+        return grid;
+    }
+
+    // Kíp t của lớp g không trùng giảng viên / lớp biên chế / lớp cha - con thuộc phần cố định
+    private boolean timeFree(Schedule schedule, OccupancyGrid fixed, int g, int[] variableOf, int t) {
+        OfferingDescriptor d = problem.descriptors[g];
+        int day = dayOf(t), start = startOf(t);
+        int lecturer = schedule.lecturer[g];
+        for (int p = 0; p < d.duration; p++) {
+            int slot = OccupancyGrid.slot(day, start + p);
+            if (lecturer >= 0 && fixed.lecturerCount(slot, lecturer) > 0) return false;
+            for (int cls : d.classes) {
+                if (fixed.classCount(slot, cls) > 0) return false;
+            }
+        }
+        for (int k = 0; k < d.pinnedRelatives.length; k += 3) {
+            if (d.pinnedRelatives[k] == day && start <= d.pinnedRelatives[k + 2]
+                    && start + d.duration - 1 >= d.pinnedRelatives[k + 1]) return false;
+        }
+        if (d.parent >= 0 && variableOf[d.parent] < 0 && clashesWith(schedule, d.parent, day, start, d.duration)) return false;
+        for (int c : d.children) {
+            if (variableOf[c] < 0 && clashesWith(schedule, c, day, start, d.duration)) return false;
+        }
+        return true;
+    }
+
+    private boolean clashesWith(Schedule schedule, int h, int day, int start, int duration) {
+        return overlaps(schedule.day[h], schedule.startPeriod[h], problem.descriptors[h].duration, day, start, duration);
+    }
+
+    private boolean roomFree(OccupancyGrid fixed, int room, int t, int duration) {
+        if (problem.roomVirtual[room]) return true; // Phòng ONLINE không bị trùng
+        for (int p = 0; p < duration; p++) {
+            if (fixed.roomCount(OccupancyGrid.slot(dayOf(t), startOf(t) + p), room) > 0) return false;
+        }
+        return true;
+    }
+
+    // 2 lớp không được học cùng giờ: chung giảng viên (đang gán), chung lớp biên chế hoặc là cặp cha - con
+    private boolean mustNotOverlap(Schedule schedule, int g, int h) {
+        OfferingDescriptor a = problem.descriptors[g], b = problem.descriptors[h];
+        if (a.parent == h || b.parent == g) return true;
+        if (schedule.lecturer[g] >= 0 && schedule.lecturer[g] == schedule.lecturer[h]) return true;
+        for (int c1 : a.classes) {
+            for (int c2 : b.classes) if (c1 == c2) return true;
+        }
+        return false;
+    }
+}
@@ -0,0 +1,314 @@
+package com.phenikaa.scheduler.core;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+/**
+ * Khởi tạo kiến thiết kiểu DSatur (tô màu đồ thị): lần lượt xếp lớp học phần "khó nhất" trước -
+ * lớp có nhiều kíp đã bị láng giềng (chung giảng viên / lớp biên chế / cha - con) chiếm nhất,
+ * hòa thì lớp có nhiều láng giềng hơn, hòa tiếp thì chọn ngẫu nhiên - vào (ngày, kíp) chưa bị chặn
+ * và phòng ứng viên còn trống. Lớp tự phân công giảng viên chỉ xếp vào kíp còn ít nhất 1 giảng viên ứng viên rảnh
+ * và nhận 1 người rảnh trong số đó. Mỗi lần gọi với luồng ngẫu nhiên khác cho ra 1 lịch gần khả thi khác nhau.
+ * Dữ liệu kề được dựng 1 lần và chỉ đọc nên dùng chung được cho nhiều luồng.
+ */
+final class DSaturInitializer {
+
+    // Kíp (ngày, tiết bắt đầu) đánh số t = (day - 2) * 5 + vị trí tiết trong START_PERIODS, vừa 1 int bitmask
+    private static final int[] START_PERIODS = {1, 4, 7, 10, 13};
+    private static final int FIRST_DAY = 2;
+    private static final int DAYS = 6; // Thứ 2 - Thứ 7, không xếp Chủ nhật
+
+    private final CompiledProblem problem;
+    private final int[][] lecturerOfferings; // Giảng viên -> các lớp học phần (đã phân, hoặc là ứng viên)
+    private final int[][] classOfferings;    // Lớp biên chế -> các lớp học phần
+    private final int[] degree;              // Số láng giềng (đếm theo giảng viên / lớp / cha - con, có thể lặp)
+    private final int[] allowedTimes;        // Bitmask các kíp hợp lệ theo quy chế (online: tối, offline: ngày)
+    private final int[] pinnedTimes;         // Kíp đã bị lớp được ghim chiếm (chung giảng viên / lớp biên chế / cha - con)
+    private final int[][] candidatePinnedTimes; // Lớp tự phân công: kíp mỗi giảng viên ứng viên bận vì lớp được ghim
+
+    DSaturInitializer(CompiledProblem problem) {
+        this.problem = problem;
+        int n = problem.size;
+        this.lecturerOfferings = ConflictGraph.group(n, problem.lecturerCount,
+                g -> ConflictGraph.lecturerKeys(problem.descriptors[g]));
+        this.classOfferings = ConflictGraph.group(n, problem.classCount, g -> problem.descriptors[g].classes);
+
+        this.degree = new int[n];
+        this.allowedTimes = new int[n];
+        this.pinnedTimes = new int[n];
+        for (int g = 0; g < n; g++) {
+            OfferingDescriptor d = problem.descriptors[g];
+            int deg = d.children.length + (d.parent >= 0 ? 1 : 0);
+            for (int l : ConflictGraph.lecturerKeys(d)) deg += lecturerOfferings[l].length - 1;
+            for (int cls : d.classes) deg += classOfferings[cls].length - 1;
+            degree[g] = deg;
+
+            int[] starts = d.online ? AbstractSchedulingEngine.ONLINE_SLOTS : AbstractSchedulingEngine.OFFLINE_SLOTS;
+            for (int day = FIRST_DAY; day < FIRST_DAY + DAYS; day++) {
+                for (int start : starts) {
+                    allowedTimes[g] |= 1 << time(day, start);
+                    if (pinnedBusy(g, day, start)) pinnedTimes[g] |= 1 << time(day, start);
+                }
+            }
+        }
+
+        this.candidatePinnedTimes = new int[n][];
+        for (int g = 0; g < n; g++) {
+            int[] lecturers = problem.descriptors[g].lecturerCandidates;
+            candidatePinnedTimes[g] = new int[lecturers.length];
+            for (int i = 0; i < lecturers.length; i++) {
+                for (int t : bits(allowedTimes[g])) {
+                    if (lecturerPinned(g, lecturers[i], dayOf(t), startOf(t))) candidatePinnedTimes[g][i] |= 1 << t;
+                }
+            }
+        }
+    }
+
+    // Kíp (day, start) của g có trùng giảng viên / lớp biên chế / lớp cha - con được ghim không
+    private boolean pinnedBusy(int g, int day, int start) {
+        OfferingDescriptor d = problem.descriptors[g];
+        OccupancyGrid background = problem.background;
+        for (int p = 0; p < d.duration; p++) {
+            int slot = OccupancyGrid.slot(day, start + p);
+            if (d.lecturer >= 0 && background.lecturerCount(slot, d.lecturer) > 0) return true;
+            for (int cls : d.classes) {
+                if (background.classCount(slot, cls) > 0) return true;
+            }
+        }
+        for (int k = 0; k < d.pinnedRelatives.length; k += 3) {
+            if (d.pinnedRelatives[k] == day && start <= d.pinnedRelatives[k + 2]
+                    && start + d.duration - 1 >= d.pinnedRelatives[k + 1]) return true;
+        }
+        return false;
+    }
+
+    // Giảng viên l đã dạy lớp được ghim trùng (ngày, kíp) nếu dạy g
+    private boolean lecturerPinned(int g, int l, int day, int start) {
+        for (int p = 0; p < problem.descriptors[g].duration; p++) {
+            if (problem.background.lecturerCount(OccupancyGrid.slot(day, start + p), l) > 0) return true;
+        }
+        return false;
+    }
+
+    // Dựng 1 lịch vào schedule (bảng chiếm chỗ của nó được dùng làm nháp; cá thể được đánh dấu cần chấm lại)
+    void build(Schedule schedule, SplittableRandom rnd) {
+        int n = problem.size;
+        OccupancyGrid grid = schedule.grid;
+        grid.copyFrom(problem.background); // Phòng của lớp được ghim đã bị chiếm sẵn
+
+        int[] blocked = pinnedTimes.clone(); // Kíp đã bị láng giềng đã xếp (hoặc lớp được ghim) chiếm
+        int[] lecturerBusy = new int[problem.lecturerCount]; // Kíp giảng viên đã có lớp
+        boolean[] placed = new boolean[n];
+        int[] tieBreak = new int[n];
+        LongHeap queue = new LongHeap(n * 2);
+        for (int g = 0; g < n; g++) {
+            tieBreak[g] = rnd.nextInt(1 << TIE_BITS);
+            queue.push(key(Integer.bitCount(blocked[g] & allowedTimes[g]), degree[g], tieBreak[g], g));
+        }
+
+        for (int placedCount = 0; placedCount < n; ) {
+            long top = queue.pop();
+            int g = (int) (top & INDEX_MASK);
+            // Bỏ qua mục cũ (đã xếp, hoặc độ bão hòa đã tăng và có mục mới hơn trong hàng đợi)
+            if (placed[g] || saturation(top) != Integer.bitCount(blocked[g] & allowedTimes[g])) continue;
+
+            int t = place(schedule, grid, g, blocked[g], lecturerBusy, rnd);
+            placed[g] = true;
+            placedCount++;
+            if (t >= 0) blockNeighbours(g, schedule.lecturer[g], t, blocked, lecturerBusy, placed, tieBreak, queue);
+        }
+        schedule.isFitnessChanged = true;
+        schedule.basis = null;
+    }
+
+    // Chọn (ngày, kíp, phòng) không trùng cho g (và giảng viên rảnh nếu lớp tự phân công); trả về kíp đã chọn
+    private int place(Schedule schedule, OccupancyGrid grid, int g, int blockedTimes, int[] lecturerBusy,
+                      SplittableRandom rnd) {
+        OfferingDescriptor d = problem.descriptors[g];
+        int free = allowedTimes[g] & ~blockedTimes;
+        int[] candidates = d.roomCandidates;
+        if (d.lecturerCandidates.length > 0) {
+            // Chỉ giữ kíp còn ít nhất 1 giảng viên ứng viên rảnh
+            int lecturerFree = 0;
+            for (int i = 0; i < d.lecturerCandidates.length; i++) {
+                lecturerFree |= ~(lecturerBusy[d.lecturerCandidates[i]] | candidatePinnedTimes[g][i]);
+            }
+            free &= lecturerFree;
+        }
+
+        // Thử các kíp còn trống theo thứ tự ngẫu nhiên, lấy phòng trống đầu tiên tính từ 1 vị trí ngẫu nhiên
+        int[] times = bits(free);
+        shuffle(times, rnd);
+        for (int t : times) {
+            int day = dayOf(t), start = startOf(t);
+            int offset = rnd.nextInt(candidates.length);
+            for (int k = 0; k < candidates.length; k++) {
+                int room = candidates[(offset + k) % candidates.length];
+                if (roomFree(grid, room, day, start, d.duration)) {
+                    assign(schedule, grid, g, day, start, room);
+                    chooseLecturer(schedule, g, t, lecturerBusy, rnd);
+                    return t;
+                }
+            }
+        }
+
+        // Không còn chỗ sạch: xếp ngẫu nhiên (ưu tiên kíp chưa bị chặn), để GA xử lý tiếp
+        int[] fallback = times.length > 0 ? times : bits(allowedTimes[g]);
+        int t = fallback[rnd.nextInt(fallback.length)];
+        assign(schedule, grid, g, dayOf(t), startOf(t), candidates[rnd.nextInt(candidates.length)]);
+        chooseLecturer(schedule, g, t, lecturerBusy, rnd);
+        return t;
+    }
+
+    // Lớp tự phân công: chọn ngẫu nhiên 1 giảng viên ứng viên rảnh ở kíp t (không ai rảnh thì chọn bất kỳ)
+    private void chooseLecturer(Schedule schedule, int g, int t, int[] lecturerBusy, SplittableRandom rnd) {
+        int[] lecturers = problem.descriptors[g].lecturerCandidates;
+        if (lecturers.length == 0) return;
+        int freeCount = 0;
+        for (int i = 0; i < lecturers.length; i++) if (lecturerFree(g, i, t, lecturerBusy)) freeCount++;
+        if (freeCount == 0) {
+            schedule.lecturer[g] = lecturers[rnd.nextInt(lecturers.length)];
+            return;
+        }
+        int pick = rnd.nextInt(freeCount);
+        for (int i = 0; i < lecturers.length; i++) {
+            if (lecturerFree(g, i, t, lecturerBusy) && pick-- == 0) {
+                schedule.lecturer[g] = lecturers[i];
+                return;
+            }
+        }
+    }
+
+    private boolean lecturerFree(int g, int i, int t, int[] lecturerBusy) {
+        int lecturer = problem.descriptors[g].lecturerCandidates[i];
+        return ((lecturerBusy[lecturer] | candidatePinnedTimes[g][i]) & 1 << t) == 0;
+    }
+
+    private void assign(Schedule schedule, OccupancyGrid grid, int g, int day, int start, int room) {
+        schedule.setGene(g, day, start, room);
+        if (problem.roomVirtual[room]) return;
+        for (int p = 0; p < problem.descriptors[g].duration; p++) grid.addRoom(OccupancyGrid.slot(day, start + p), room);
+    }
+
+    private boolean roomFree(OccupancyGrid grid, int room, int day, int start, int duration) {
+        if (problem.roomVirtual[room]) return true; // Phòng ONLINE không bị trùng
+        for (int p = 0; p < duration; p++) {
+            if (grid.roomCount(OccupancyGrid.slot(day, start + p), room) > 0) return false;
+        }
+        return true;
+    }
+
+    // Chặn kíp t cho mọi láng giềng chưa xếp của g và cập nhật độ bão hòa của chúng.
+    // Theo giảng viên thực dạy g: chặn lớp đã phân cho người đó; lớp tự phân công chỉ ghi nhận người đó bận
+    private void blockNeighbours(int g, int lecturer, int t, int[] blocked, int[] lecturerBusy, boolean[] placed,
+                                 int[] tieBreak, LongHeap queue) {
+        OfferingDescriptor d = problem.descriptors[g];
+        if (lecturer >= 0) {
+            lecturerBusy[lecturer] |= 1 << t;
+            for (int h : lecturerOfferings[lecturer]) {
+                if (problem.descriptors[h].lecturer == lecturer) block(h, t, blocked, placed, tieBreak, queue);
+            }
+        }
+        for (int cls : d.classes) {
+            for (int h : classOfferings[cls]) block(h, t, blocked, placed, tieBreak, queue);
+        }
+        if (d.parent >= 0) block(d.parent, t, blocked, placed, tieBreak, queue);
+        for (int c : d.children) block(c, t, blocked, placed, tieBreak, queue);
+    }
+
+    private void block(int h, int t, int[] blocked, boolean[] placed, int[] tieBreak, LongHeap queue) {
+        int bit = 1 << t;
+        if (placed[h] || (blocked[h] & bit) != 0) return;
+        blocked[h] |= bit;
+        if ((allowedTimes[h] & bit) != 0) {
+            queue.push(key(Integer.bitCount(blocked[h] & allowedTimes[h]), degree[h], tieBreak[h], h));
+        }
+    }
+
+    // --- MÃ HÓA ƯU TIÊN: [bão hòa 6 bit][bậc 17 bit][ngẫu nhiên 18 bit][ordinal 22 bit] ---
+    private static final int INDEX_BITS = 22;
+    private static final int TIE_BITS = 18;
+    private static final int DEGREE_BITS = 17;
+    private static final long INDEX_MASK = (1L << INDEX_BITS) - 1;
+
+    private static long key(int saturation, int degree, int tieBreak, int g) {
+        long deg = Math.min(degree, (1 << DEGREE_BITS) - 1);
+        return ((long) saturation << (INDEX_BITS + TIE_BITS + DEGREE_BITS))
+                | (deg << (INDEX_BITS + TIE_BITS))
+                | ((long) tieBreak << INDEX_BITS)
+                | g;
+    }
+
+    private static int saturation(long key) {
+        return (int) (key >>> (INDEX_BITS + TIE_BITS + DEGREE_BITS));
+    }
+
+    // --- KÍP ---
+    private static int time(int day, int start) {
+        return (day - FIRST_DAY) * START_PERIODS.length + Arrays.binarySearch(START_PERIODS, start);
+    }
+
+    private static int dayOf(int t) {
+        return FIRST_DAY + t / START_PERIODS.length;
+    }
+
+    private static int startOf(int t) {
+        return START_PERIODS[t % START_PERIODS.length];
+    }
+
+    private static int[] bits(int mask) {
+        int[] result = new int[Integer.bitCount(mask)];
+        for (int k = 0; mask != 0; k++) {
+            result[k] = Integer.numberOfTrailingZeros(mask);
+            mask &= mask - 1;
+        }
+        return result;
+    }
+
+    private static void shuffle(int[] a, SplittableRandom rnd) {
+        for (int i = a.length - 1; i > 0; i--) {
+            int j = rnd.nextInt(i + 1);
+            int tmp = a[i];
+            a[i] = a[j];
+            a[j] = tmp;
+        }
+    }
+
+    // Max-heap số nguyên long (tránh boxing của PriorityQueue)
+    private static final class LongHeap {
+        private long[] heap;
+        private int size;
+
+        LongHeap(int capacity) {
+            heap = new long[Math.max(1, capacity)];
+        }
+
+        void push(long value) {
+            if (size == heap.length) heap = Arrays.copyOf(heap, size * 2);
+            int i = size++;
+            while (i > 0) {
+                int parent = (i - 1) >>> 1;
+                if (heap[parent] >= value) break;
+                heap[i] = heap[parent];
+                i = parent;
+            }
+            heap[i] = value;
+        }
+
+        long pop() {
+            long top = heap[0];
+            long last = heap[--size];
+            int i = 0;
+            while (true) {
+                int child = 2 * i + 1;
+                if (child >= size) break;
+                if (child + 1 < size && heap[child + 1] > heap[child]) child++;
+                if (heap[child] <= last) break;
+                heap[i] = heap[child];
+                i = child;
+            }
+            if (size > 0) heap[i] = last;
+            return top;
+        }
+    }
+}
@@ -0,0 +1,204 @@
+package com.phenikaa.scheduler.core;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.function.IntPredicate;
+
+/**
+ * Kiểm tra khả thi trước khi chạy engine (chỉ đếm, vài ms): các cận về sức chứa mà mọi lịch không vi phạm cứng
+ * đều phải thỏa, theo đúng quy chế kíp của randomGene (Thứ 2 - Thứ 7; offline kíp 1, 4, 7, 10; online kíp tối 13)
+ * và đã trừ phần bị lớp được ghim chiếm:
+ * - Loại phòng / sức chứa: lớp không có phòng nào đúng loại và đủ chỗ.
+ * - Phòng: các lớp offline có phòng ứng viên nằm trong cùng 1 tập phòng không thể nhiều hơn số (phòng, kíp)
+ *   còn trống của tập đó (VD: số lớp phòng PC > số phòng PC x 24 kíp).
+ * - Giảng viên / lớp biên chế: số buổi offline / online không vượt số kíp offline / online còn trống.
+ * Vi phạm 1 cận nghĩa là chắc chắn không có lịch khả thi; điều ngược lại không đúng (cận cần, không đủ).
+ * Lớp do GA tự phân công giảng viên không tính vào cận giảng viên (chưa biết ai dạy).
+ */
+final class FeasibilityAnalyzer {
+
+    private static final int FIRST_DAY = 2;
+    private static final int DAYS = 6;        // Thứ 2 - Thứ 7, không xếp Chủ nhật
+    private static final int MAX_EXAMPLES = 5; // Số mã lớp nêu ví dụ trong mỗi vi phạm
+
+    // 1 cận bị vi phạm: loại (ROOM_TYPE, CAPACITY, ROOM_POOL, LECTURER, CLASS) và mô tả để hiển thị
+    record Violation(String kind, String message) {
+        @Override
+        public String toString() {
+            return kind + ": " + message;
+        }
+    }
+
+    record Report(List<Violation> violations) {
+        boolean feasible() {
+            return violations.isEmpty();
+        }
+
+        @Override
+        public String toString() {
+            if (violations.isEmpty()) return "Feasible";
+            StringBuilder sb = new StringBuilder(violations.size() + " capacity bound(s) violated");
+            for (Violation v : violations) sb.append(" | ").append(v);
+            return sb.toString();
+        }
+    }
+
+    private final CompiledProblem problem;
+    private final int duration; // Số tiết 1 buổi (dùng để xét kíp có bị lớp được ghim chiếm không)
+
+    FeasibilityAnalyzer(CompiledProblem problem) {
+        this.problem = problem;
+        int max = 0;
+        for (OfferingDescriptor d : problem.descriptors) max = Math.max(max, d.duration);
+        this.duration = max;
+    }
+
+    Report analyze() {
+        List<Violation> violations = new ArrayList<>();
+        checkRoomFit(violations);
+        checkRoomPools(violations);
+        checkSessions(violations);
+        return new Report(violations);
+    }
+
+    // --- 1. LOẠI PHÒNG & SỨC CHỨA ---
+    private void checkRoomFit(List<Violation> violations) {
+        List<Integer> noType = new ArrayList<>();
+        List<Integer> noCapacity = new ArrayList<>();
+        for (int g = 0; g < problem.size; g++) {
+            OfferingDescriptor d = problem.descriptors[g];
+            boolean typed = false, fits = false;
+            for (int r = 0; r < problem.rooms.length; r++) {
+                if (!problem.roomTypeAllowed(d, r)) continue;
+                typed = true;
+                if (problem.roomCapacity[r] >= d.plannedSize) {
+                    fits = true;
+                    break;
+                }
+            }
+            if (!typed) noType.add(g);
+            else if (!fits) noCapacity.add(g);
+        }
+        if (!noType.isEmpty()) {
+            violations.add(new Violation("ROOM_TYPE", noType.size()
+                    + " offering(s) have no room of an allowed type, e.g. " + codes(noType)));
+        }
+        if (!noCapacity.isEmpty()) {
+            violations.add(new Violation("CAPACITY", noCapacity.size()
+                    + " offering(s) are larger than every room of their type, e.g. " + codes(noCapacity)));
+        }
+    }
+
+    // --- 2. TẬP PHÒNG (điều kiện Hall trên các tập phòng ứng viên) ---
+    private void checkRoomPools(List<Violation> violations) {
+        int[] freeTimes = new int[problem.rooms.length];
+        for (int r = 0; r < problem.rooms.length; r++) {
+            int room = r;
+            freeTimes[r] = freeTimes(AbstractSchedulingEngine.OFFLINE_SLOTS,
+                    slot -> problem.background.roomCount(slot, room) > 0);
+        }
+
+        // Gom lớp offline theo tập phòng ứng viên (chỉ xét tập toàn phòng thật; phòng ONLINE không giới hạn)
+        Map<BitSet, List<Integer>> byPool = new LinkedHashMap<>();
+        for (int g = 0; g < problem.size; g++) {
+            OfferingDescriptor d = problem.descriptors[g];
+            if (d.online) continue;
+            BitSet pool = new BitSet(problem.rooms.length);
+            boolean physical = true;
+            for (int r : d.roomCandidates) {
+                physical &= !problem.roomVirtual[r];
+                pool.set(r);
+            }
+            if (physical) byPool.computeIfAbsent(pool, p -> new ArrayList<>()).add(g);
+        }
+
+        // Mọi lớp có tập ứng viên nằm trong tập C đều phải xếp vào (phòng, kíp) của C
+        for (BitSet pool : byPool.keySet()) {
+            List<Integer> demand = new ArrayList<>();
+            for (Map.Entry<BitSet, List<Integer>> e : byPool.entrySet()) {
+                BitSet outside = (BitSet) e.getKey().clone();
+                outside.andNot(pool);
+                if (outside.isEmpty()) demand.addAll(e.getValue());
+            }
+            int capacity = pool.stream().map(r -> freeTimes[r]).sum();
+            if (demand.size() > capacity) {
+                violations.add(new Violation("ROOM_POOL", demand.size() + " offline offering(s) need "
+                        + poolLabel(pool) + " but only " + capacity + " free (room, slot) pairs exist, e.g. "
+                        + codes(demand)));
+            }
+        }
+    }
+
+    // --- 3. SỐ BUỔI CỦA GIẢNG VIÊN / LỚP BIÊN CHẾ ---
+    private void checkSessions(List<Violation> violations) {
+        int[][] lecturerOfferings = ConflictGraph.group(problem.size, problem.lecturerCount, g -> {
+            int l = problem.descriptors[g].lecturer;
+            return l >= 0 ? new int[]{l} : new int[0];
+        });
+        for (int l = 0; l < problem.lecturerCount; l++) {
+            int lecturer = l;
+            String name = problem.lecturers[l].getFullName() != null
+                    ? problem.lecturers[l].getFullName()
+                    : String.valueOf(problem.lecturers[l].getId());
+            checkSessions(violations, "LECTURER", "Lecturer " + name, lecturerOfferings[l],
+                    slot -> problem.background.lecturerCount(slot, lecturer) > 0);
+        }
+
+        int[][] classOfferings = ConflictGraph.group(problem.size, problem.classCount, g -> problem.descriptors[g].classes);
+        for (int c = 0; c < problem.classCount; c++) {
+            int cls = c;
+            checkSessions(violations, "CLASS", "Class " + problem.classNames[c], classOfferings[c],
+                    slot -> problem.background.classCount(slot, cls) > 0);
+        }
+    }
+
+    private void checkSessions(List<Violation> violations, String kind, String subject, int[] offerings,
+                               IntPredicate pinnedBusy) {
+        List<Integer> offline = new ArrayList<>();
+        List<Integer> online = new ArrayList<>();
+        for (int g : offerings) (problem.descriptors[g].online ? online : offline).add(g);
+
+        int offlineFree = freeTimes(AbstractSchedulingEngine.OFFLINE_SLOTS, pinnedBusy);
+        if (offline.size() > offlineFree) {
+            violations.add(new Violation(kind, subject + " has " + offline.size() + " offline sessions but only "
+                    + offlineFree + " free offline slots, e.g. " + codes(offline)));
+        }
+        int onlineFree = freeTimes(AbstractSchedulingEngine.ONLINE_SLOTS, pinnedBusy);
+        if (online.size() > onlineFree) {
+            violations.add(new Violation(kind, subject + " has " + online.size() + " online sessions but only "
+                    + onlineFree + " free evening slots, e.g. " + codes(online)));
+        }
+    }
+
+    // Số kíp (ngày, tiết bắt đầu) hợp lệ mà không tiết nào bị lớp được ghim chiếm
+    private int freeTimes(int[] starts, IntPredicate pinnedBusy) {
+        int free = 0;
+        for (int day = FIRST_DAY; day < FIRST_DAY + DAYS; day++) {
+            for (int start : starts) {
+                boolean busy = false;
+                for (int p = 0; p < duration && !busy; p++) busy = pinnedBusy.test(OccupancyGrid.slot(day, start + p));
+                if (!busy) free++;
+            }
+        }
+        return free;
+    }
+
+    private String poolLabel(BitSet pool) {
+        TreeSet<String> types = new TreeSet<>();
+        pool.stream().forEach(r -> types.add(CompiledProblem.normalizeRoomType(problem.rooms[r].getType())));
+        return String.join("/", types) + " rooms (" + pool.cardinality() + ")";
+    }
+
+    private String codes(List<Integer> ordinals) {
+        String[] codes = ordinals.stream()
+                .limit(MAX_EXAMPLES)
+                .map(g -> problem.offerings.get(g).getCode())
+                .toArray(String[]::new);
+        return Arrays.toString(codes) + (ordinals.size() > MAX_EXAMPLES ? " ..." : "");
+    }
+}
@@ -0,0 +1,291 @@
+package com.phenikaa.scheduler.core;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Hàm chấm điểm (fitness) của GA, hỗ trợ 2 chế độ:
+ * - {@link #evaluate}: chấm lại toàn bộ từ đầu.
+ * - {@link #evaluateFrom}: chấm tăng dần từ cá thể gốc (basis) - chỉ gỡ đóng góp cũ và cộng đóng góp mới
+ *   của những gen khác với basis (sau lai ghép / đột biến).
+ * Hai chế độ luôn cho ra cùng một điểm.
+ */
+final class FitnessEvaluator {
+
+    // --- TRỌNG SỐ PHẠT ---
+    static final double SUNDAY_PENALTY = 5000;
+    static final double ROOM_TYPE_PENALTY = 1000;
+    static final double CAPACITY_PENALTY = 500;
+    static final double ONLINE_SLOT_PENALTY = 1000;
+    static final double EVENING_PENALTY = 100;
+    static final double ROOM_CLASH_PENALTY = 1000;
+    static final double LECTURER_CLASH_PENALTY = 1000;
+    static final double CLASS_CLASH_PENALTY = 200;
+    static final double PARENT_CLASH_PENALTY = 2000;
+    static final double LECTURER_LOAD_PENALTY = 50; // Mềm: mỗi lớp GA phân thêm vượt ngưỡng tải của giảng viên
+
+    private final CompiledProblem problem;
+    // Ghi cờ xung đột từng gen (Schedule.conflict) sau mỗi lần chấm; tắt thì không tốn thêm chi phí
+    private final boolean trackConflicts;
+
+    FitnessEvaluator(CompiledProblem problem) {
+        this(problem, false);
+    }
+
+    FitnessEvaluator(CompiledProblem problem, boolean trackConflicts) {
+        this.problem = problem;
+        this.trackConflicts = trackConflicts;
+    }
+
+    // Chấm điểm nếu cá thể đã thay đổi: tăng dần nếu biết basis, ngược lại chấm lại toàn bộ
+    void ensureEvaluated(Schedule schedule) {
+        if (!schedule.isFitnessChanged) return;
+        if (schedule.basis != null) evaluateFrom(schedule, schedule.basis);
+        else evaluate(schedule);
+    }
+
+    void evaluate(Schedule schedule) {
+        OccupancyGrid grid = schedule.grid;
+        grid.copyFrom(problem.background); // Xuất phát từ phần chiếm chỗ của các lớp được ghim
+
+        double score = 0;
+        for (int g = 0; g < problem.size; g++) {
+            score -= localPenalty(schedule, g);
+            score -= place(grid, g, schedule.day[g], schedule.startPeriod[g], schedule.roomIdx[g], schedule.lecturer[g]);
+        }
+        for (int g = 0; g < problem.size; g++) {
+            score -= parentPenalty(schedule, g);
+        }
+        finish(schedule, score);
+    }
+
+    void evaluateFrom(Schedule schedule, Schedule basis) {
+        OccupancyGrid grid = schedule.grid;
+        grid.copyFrom(basis.grid);
+        double score = basis.fitness;
+
+        // 1. Gỡ đóng góp của các gen cũ (theo basis)
+        for (int g = 0; g < problem.size; g++) {
+            if (!differs(schedule, basis, g)) continue;
+            score += localPenalty(basis, g);
+            score += unplace(grid, g, basis.day[g], basis.startPeriod[g], basis.roomIdx[g], basis.lecturer[g]);
+        }
+
+        // 2. Cộng đóng góp của các gen mới
+        for (int g = 0; g < problem.size; g++) {
+            if (!differs(schedule, basis, g)) continue;
+            score -= localPenalty(schedule, g);
+            score -= place(grid, g, schedule.day[g], schedule.startPeriod[g], schedule.roomIdx[g], schedule.lecturer[g]);
+        }
+
+        // 3. Ràng buộc cha - con: chấm lại các cặp có ít nhất 1 đầu thay đổi (mỗi cặp tính 1 lần theo lớp con)
+        for (int g = 0; g < problem.size; g++) {
+            if (!differs(schedule, basis, g)) continue;
+            score += parentPenalty(basis, g) - parentPenalty(schedule, g);
+            for (int c : problem.descriptors[g].children) {
+                if (differs(schedule, basis, c)) continue;
+                score += parentPenalty(basis, c) - parentPenalty(schedule, c);
+            }
+        }
+        finish(schedule, score);
+    }
+
+    // Dời gen g sang (day, startPeriod, roomIdx) ngay trên cá thể đã chấm điểm: cập nhật bảng chiếm chỗ và fitness
+    // mà không quét lại cả cá thể. Trả về mức thay đổi fitness (> 0 là tốt hơn); gọi lại với giá trị cũ để hoàn tác.
+    double moveGene(Schedule schedule, int g, int day, int startPeriod, int roomIdx) {
+        return moveGene(schedule, g, day, startPeriod, roomIdx, schedule.lecturer[g]);
+    }
+
+    // Như trên, kèm đổi giảng viên (chỉ dùng cho lớp có lecturerCandidates)
+    double moveGene(Schedule schedule, int g, int day, int startPeriod, int roomIdx, int lecturer) {
+        double before = localPenalty(schedule, g) + parentPenaltyAround(schedule, g);
+        double relief = unplace(schedule.grid, g, schedule.day[g], schedule.startPeriod[g], schedule.roomIdx[g],
+                schedule.lecturer[g]);
+        schedule.setGene(g, day, startPeriod, roomIdx);
+        schedule.lecturer[g] = lecturer;
+        double penalty = place(schedule.grid, g, day, startPeriod, roomIdx, lecturer);
+        double after = localPenalty(schedule, g) + parentPenaltyAround(schedule, g);
+
+        double delta = relief + before - penalty - after;
+        schedule.fitness += delta;
+        return delta;
+    }
+
+    // Gen g có đang bị phạt không (phạt riêng, trùng phòng / giảng viên / lớp, trùng giờ với lớp cha / con).
+    // Đọc bảng chiếm chỗ của cá thể nên chỉ dùng sau khi đã chấm điểm.
+    boolean inConflict(Schedule schedule, int g) {
+        if (localPenalty(schedule, g) > 0 || parentPenaltyAround(schedule, g) > 0) return true;
+
+        OfferingDescriptor d = problem.descriptors[g];
+        OccupancyGrid grid = schedule.grid;
+        int roomIdx = schedule.roomIdx[g];
+        int lecturer = schedule.lecturer[g];
+        boolean physicalRoom = !problem.roomVirtual[roomIdx];
+        for (int t = 0; t < d.duration; t++) {
+            int slot = OccupancyGrid.slot(schedule.day[g], schedule.startPeriod[g] + t);
+            if (physicalRoom && grid.roomCount(slot, roomIdx) > 1) return true;
+            if (lecturer >= 0 && grid.lecturerCount(slot, lecturer) > 1) return true;
+            for (int cls : d.classes) {
+                if (grid.classCount(slot, cls) > 1) return true;
+            }
+        }
+        return false;
+    }
+
+    // Phạt cha - con của mọi cặp có chứa g (g là con, hoặc g là cha)
+    private double parentPenaltyAround(Schedule schedule, int g) {
+        double penalty = parentPenalty(schedule, g);
+        for (int c : problem.descriptors[g].children) penalty += parentPenalty(schedule, c);
+        return penalty;
+    }
+
+    // Đếm số vi phạm cứng theo từng loại của 1 cá thể (dùng cho báo cáo tiến độ, không nằm trong vòng chấm điểm).
+    // Trùng lịch đếm theo từng tiết bị trùng, giống cách cộng điểm phạt.
+    Map<String, Integer> countHardViolations(Schedule schedule) {
+        OccupancyGrid grid = new OccupancyGrid(problem.rooms.length, problem.lecturerCount, problem.classCount);
+        grid.copyFrom(problem.background);
+        int sunday = 0, roomType = 0, capacity = 0, onlineSlot = 0;
+        int roomClash = 0, lecturerClash = 0, classClash = 0, parentClash = 0;
+
+        for (int g = 0; g < problem.size; g++) {
+            OfferingDescriptor d = problem.descriptors[g];
+            int roomIdx = schedule.roomIdx[g];
+            int lecturer = schedule.lecturer[g];
+            if (schedule.day[g] == 8) sunday++;
+            if (!problem.roomTypeAllowed(d, roomIdx)) roomType++;
+            if (problem.roomCapacity[roomIdx] < d.plannedSize) capacity++;
+            if (d.online && schedule.startPeriod[g] != 13) onlineSlot++;
+
+            boolean physicalRoom = !problem.roomVirtual[roomIdx];
+            for (int t = 0; t < d.duration; t++) {
+                int slot = OccupancyGrid.slot(schedule.day[g], schedule.startPeriod[g] + t);
+                if (physicalRoom && grid.addRoom(slot, roomIdx) > 0) roomClash++;
+                if (lecturer >= 0 && grid.addLecturer(slot, lecturer) > 0) lecturerClash++;
+                for (int cls : d.classes) {
+                    if (grid.addClass(slot, cls) > 0) classClash++;
+                }
+            }
+        }
+        for (int g = 0; g < problem.size; g++) {
+            if (parentPenalty(schedule, g) > 0) parentClash++;
+            parentClash += pinnedRelativeClashes(schedule, g);
+        }
+
+        Map<String, Integer> counts = new LinkedHashMap<>();
+        counts.put("SUNDAY", sunday);
+        counts.put("ROOM_TYPE", roomType);
+        counts.put("CAPACITY", capacity);
+        counts.put("ONLINE_SLOT", onlineSlot);
+        counts.put("ROOM_CLASH", roomClash);
+        counts.put("LECTURER_CLASH", lecturerClash);
+        counts.put("CLASS_CLASH", classClash);
+        counts.put("PARENT_CLASH", parentClash);
+        return counts;
+    }
+
+    private void finish(Schedule schedule, double score) {
+        schedule.fitness = score;
+        schedule.isFitnessChanged = false;
+        schedule.basis = null;
+        markConflicts(schedule);
+    }
+
+    // Cập nhật cờ xung đột theo bảng chiếm chỗ hiện tại (gọi lại sau khi sửa gen bằng moveGene)
+    void markConflicts(Schedule schedule) {
+        if (!trackConflicts) return;
+        for (int g = 0; g < problem.size; g++) schedule.conflict[g] = inConflict(schedule, g);
+    }
+
+    private static boolean differs(Schedule a, Schedule b, int g) {
+        return a.day[g] != b.day[g] || a.startPeriod[g] != b.startPeriod[g] || a.roomIdx[g] != b.roomIdx[g]
+                || a.lecturer[g] != b.lecturer[g];
+    }
+
+    // Phạt chỉ phụ thuộc vào chính gen g (ngày, kíp, loại phòng, sức chứa, trùng giờ với lớp cha / con được ghim)
+    private double localPenalty(Schedule schedule, int g) {
+        OfferingDescriptor d = problem.descriptors[g];
+        int roomIdx = schedule.roomIdx[g];
+        int startPeriod = schedule.startPeriod[g];
+        double penalty = 0;
+
+        // 0. Không xếp Chủ nhật
+        if (schedule.day[g] == 8) penalty += SUNDAY_PENALTY;
+
+        // 1. Phạt Vi phạm Loại phòng & Sức chứa (Dù randomGene đã lọc, nhưng mutation có thể gây lỗi)
+        if (!problem.roomTypeAllowed(d, roomIdx)) penalty += ROOM_TYPE_PENALTY;
+        if (problem.roomCapacity[roomIdx] < d.plannedSize) penalty += CAPACITY_PENALTY;
+
+        // 2. Phạt Vi phạm Kíp chuẩn (Double check)
+        if (d.online && startPeriod != 13) penalty += ONLINE_SLOT_PENALTY;
+        if (!d.online && startPeriod == 13) penalty += EVENING_PENALTY; // Phạt nhẹ, tránh học tối nếu ko cần thiết
+
+        // 5. Lớp cha / con được ghim không dời được nên tính như phạt riêng của g
+        if (d.pinnedRelatives.length > 0) penalty += pinnedRelativeClashes(schedule, g) * PARENT_CLASH_PENALTY;
+        return penalty;
+    }
+
+    // Số lớp cha / con được ghim trùng giờ với gen g
+    private int pinnedRelativeClashes(Schedule schedule, int g) {
+        OfferingDescriptor d = problem.descriptors[g];
+        int start = schedule.startPeriod[g];
+        int end = start + d.duration - 1;
+        int clashes = 0;
+        for (int k = 0; k < d.pinnedRelatives.length; k += 3) {
+            if (d.pinnedRelatives[k] == schedule.day[g] && start <= d.pinnedRelatives[k + 2]
+                    && end >= d.pinnedRelatives[k + 1]) clashes++;
+        }
+        return clashes;
+    }
+
+    // 3. Đặt gen vào bảng chiếm chỗ, trả về mức phạt trùng Phòng / Giảng viên / Lớp biên chế phát sinh
+    // (kèm phạt mềm vượt ngưỡng tải khi GA tự phân công giảng viên)
+    private double place(OccupancyGrid grid, int g, int day, int startPeriod, int roomIdx, int lecturer) {
+        OfferingDescriptor d = problem.descriptors[g];
+        boolean physicalRoom = !problem.roomVirtual[roomIdx]; // Trừ phòng Online
+
+        double penalty = 0;
+        if (lecturer >= 0 && problem.lecturerLoadCap != null
+                && grid.addLoad(lecturer) >= problem.lecturerLoadCap[lecturer]) penalty += LECTURER_LOAD_PENALTY;
+        for (int t = 0; t < d.duration; t++) {
+            int slot = OccupancyGrid.slot(day, startPeriod + t);
+            if (physicalRoom && grid.addRoom(slot, roomIdx) > 0) penalty += ROOM_CLASH_PENALTY;
+            if (lecturer >= 0 && grid.addLecturer(slot, lecturer) > 0) penalty += LECTURER_CLASH_PENALTY;
+            for (int cls : d.classes) {
+                if (grid.addClass(slot, cls) > 0) penalty += CLASS_CLASH_PENALTY; // Phạt nhẹ hơn trùng phòng
+            }
+        }
+        return penalty;
+    }
+
+    // Ngược lại với place: gỡ gen khỏi bảng, trả về mức phạt trùng được gỡ bỏ
+    private double unplace(OccupancyGrid grid, int g, int day, int startPeriod, int roomIdx, int lecturer) {
+        OfferingDescriptor d = problem.descriptors[g];
+        boolean physicalRoom = !problem.roomVirtual[roomIdx];
+
+        double relief = 0;
+        if (lecturer >= 0 && problem.lecturerLoadCap != null
+                && grid.removeLoad(lecturer) >= problem.lecturerLoadCap[lecturer]) relief += LECTURER_LOAD_PENALTY;
+        for (int t = 0; t < d.duration; t++) {
+            int slot = OccupancyGrid.slot(day, startPeriod + t);
+            if (physicalRoom && grid.removeRoom(slot, roomIdx) > 0) relief += ROOM_CLASH_PENALTY;
+            if (lecturer >= 0 && grid.removeLecturer(slot, lecturer) > 0) relief += LECTURER_CLASH_PENALTY;
+            for (int cls : d.classes) {
+                if (grid.removeClass(slot, cls) > 0) relief += CLASS_CLASH_PENALTY;
+            }
+        }
+        return relief;
+    }
+
+    // 4. RÀNG BUỘC CHA - CON (QUAN TRỌNG NHẤT): tính theo lớp con g
+    private double parentPenalty(Schedule schedule, int g) {
+        int p = problem.descriptors[g].parent;
+        if (p < 0 || schedule.day[p] != schedule.day[g]) return 0;
+
+        int startPeriod = schedule.startPeriod[g];
+        int pEnd = schedule.startPeriod[p] + problem.descriptors[p].duration - 1;
+        int cEnd = startPeriod + problem.descriptors[g].duration - 1;
+
+        // Nếu khoảng thời gian giao nhau thì phạt cực nặng để GA loại bỏ ngay
+        return startPeriod <= pEnd && cEnd >= schedule.startPeriod[p] ? PARENT_CLASH_PENALTY : 0;
+    }
+}
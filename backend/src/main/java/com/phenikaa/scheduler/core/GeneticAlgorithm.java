@@ -2,334 +2,676 @@ package com.phenikaa.scheduler.core;
 
 import com.phenikaa.scheduler.model.CourseOffering;
 import com.phenikaa.scheduler.model.Room;
-import com.phenikaa.scheduler.repository.CourseOfferingRepository;
-import com.phenikaa.scheduler.repository.RoomRepository;
-import lombok.AllArgsConstructor;
-import lombok.Data;
-import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
 import java.util.*;
-import java.util.stream.Collectors;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.Phaser;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
 
 @Service
-public class GeneticAlgorithm {
+public class GeneticAlgorithm extends AbstractSchedulingEngine {
 
-    @Autowired private CourseOfferingRepository offeringRepo;
-    @Autowired private RoomRepository roomRepo;
-    
     // Không cần autowired Validator ở đây nếu ta nhúng logic check vào hàm tính điểm
     // Nhưng để clean, ta vẫn có thể dùng các hàm static helper hoặc giữ Validator
 
     // --- CẤU HÌNH GA ---
     private static final int POPULATION_SIZE = 150;   // Tăng lên để đa dạng hóa
     private static final int GENERATIONS = 300;       // Chạy sâu hơn
+    private static final double TARGET_FITNESS = -10; // Gần như hoàn hảo
     private static final double MUTATION_RATE = 0.05; // Giảm nhẹ vì khởi tạo đã khá tốt
     private static final int TOURNAMENT_SIZE = 5;
 
-    @Data
-    @AllArgsConstructor
-    class Schedule {
-        Map<Long, Gene> genes; 
-        double fitness;
-        boolean isFitnessChanged;
+    // Thứ tự giảm dần theo fitness (gần 0 nhất lên đầu)
+    private static final Comparator<Schedule> BY_FITNESS_DESC = (s1, s2) -> Double.compare(s2.fitness, s1.fitness);
 
-        public Schedule() {
-            this.genes = new HashMap<>();
-            this.isFitnessChanged = true;
+    @Override
+    public String getName() {
+        return "GA";
+    }
+
+    @Override
+    int defaultGenerations() {
+        return GENERATIONS;
+    }
+
+    @Override
+    double defaultTargetFitness() {
+        return TARGET_FITNESS;
+    }
+
+    // --- HÀM CHÍNH: nạp dữ liệu / lưu kết quả nằm ở AbstractSchedulingEngine ---
+    @Override
+    EngineResult solve(CompiledProblem problem, SolverOptions options, Termination termination,
+                       SplittableRandom runRandom, SolverMonitor monitor, SharedIncumbent shared) {
+        FitnessEvaluator evaluator = newEvaluator(problem, options);
+
+        // Mỗi đảo / mỗi vị trí cá thể con nhận 1 luồng số ngẫu nhiên riêng tách từ luồng gốc của lần chạy.
+        // Khởi động ấm: 1 phần quần thể xuất phát từ lịch đang lưu trong DB (và các bản nhiễu của nó)
+        WarmStart warmStart = options.isWarmStart()
+                ? new WarmStart(persistedSchedule(problem, evaluator, runRandom.split()),
+                        options.getWarmStartFraction(), options.getWarmStartPerturbation())
+                : null;
+
+        // Tách thành các thành phần độc lập (nếu bật) để mỗi phần có không gian tìm kiếm nhỏ hơn
+        // (bài toán con khác bài toán gốc nên không trao đổi lời giải với portfolio)
+        List<int[]> components = options.isDecompose() ? ProblemDecomposer.components(problem) : List.of();
+
+        int islandCount = options.resolveIslands();
+        Schedule bestSchedule = components.size() > 1
+                ? runDecomposed(problem, evaluator, components, options, termination, warmStart, runRandom, monitor)
+                : solve(problem, evaluator, options, termination, warmStart, runRandom, monitor, shared);
+        return new EngineResult(bestSchedule,
+                (islandCount > 1 ? " | Islands: " + islandCount : "")
+                + (components.size() > 1 ? " | Components: " + components.size() + " (largest "
+                        + components.stream().mapToInt(c -> c.length).max().orElse(0) + "/" + problem.size + ")" : ""));
+    }
+
+    private static FitnessEvaluator newEvaluator(CompiledProblem problem, SolverOptions options) {
+        return new FitnessEvaluator(problem, options.getMutation() == SolverOptions.MutationMode.CONFLICT_GUIDED);
+    }
+
+    private Schedule solve(CompiledProblem problem, FitnessEvaluator evaluator, SolverOptions options,
+                           Termination termination, WarmStart warmStart, SplittableRandom runRandom,
+                           SolverMonitor monitor, SharedIncumbent shared) {
+        return options.resolveIslands() > 1
+                ? runIslands(problem, evaluator, options, termination, warmStart, runRandom, monitor, shared)
+                : runSinglePopulation(problem, evaluator, options, termination, warmStart, runRandom, monitor, shared);
+    }
+
+    // --- TÁCH BÀI TOÁN: mỗi thành phần liên thông tiến hóa riêng (song song) rồi ghép lại ---
+    private Schedule runDecomposed(CompiledProblem problem, FitnessEvaluator evaluator, List<int[]> components,
+                                   SolverOptions options, Termination termination, WarmStart warmStart,
+                                   SplittableRandom runRandom, SolverMonitor monitor) {
+        int count = components.size();
+
+        List<Room> rooms = Arrays.asList(problem.rooms);
+        ComponentMonitor componentMonitor = new ComponentMonitor(monitor, count);
+        Schedule[] results = new Schedule[count];
+        CompiledProblem[] subProblems = new CompiledProblem[count];
+        List<ForkJoinTask<?>> tasks = new ArrayList<>();
+        for (int c = 0; c < count; c++) {
+            int index = c;
+            int[] ordinals = components.get(c);
+            List<CourseOffering> subOfferings = new ArrayList<>(ordinals.length);
+            for (int g : ordinals) subOfferings.add(problem.offerings.get(g));
+
+            // Cùng danh sách phòng nên ordinal phòng của bài toán con trùng với bài toán gốc
+            // (ordinal giảng viên thì khác, đổi qua lại theo id). Bài toán con nào cũng giữ toàn bộ lớp được ghim
+            // và ngưỡng tải giảng viên của bài toán gốc
+            CompiledProblem subProblem = CompiledProblem.compile(subOfferings, rooms, problem.lecturerCandidates,
+                    problem.pinned, problem);
+            subProblems[c] = subProblem;
+            FitnessEvaluator subEvaluator = newEvaluator(subProblem, options);
+            WarmStart subWarmStart = warmStart != null ? warmStart.restrict(problem, subProblem, subEvaluator, ordinals) : null;
+            SplittableRandom subRandom = runRandom.split();
+            SolverMonitor subMonitor = componentMonitor.forComponent(c);
+            // Ngưỡng mục tiêu chia theo số lớp của thành phần (tổng các phần = ngưỡng toàn bài)
+            Termination subTermination = termination.withTargetShare((double) ordinals.length / problem.size);
+            tasks.add(ForkJoinTask.adapt(() -> {
+                results[index] = solve(subProblem, subEvaluator, options, subTermination, subWarmStart, subRandom,
+                        subMonitor, null);
+                componentMonitor.finish(index, results[index], subEvaluator);
+            }));
         }
-        
-        public Schedule(Schedule other) {
-            this.genes = new HashMap<>();
-            for (Map.Entry<Long, Gene> entry : other.genes.entrySet()) {
-                this.genes.put(entry.getKey(), new Gene(entry.getValue()));
+        forkAndJoin(tasks, "Component GA failed");
+
+        // Ghép lời giải các thành phần và chấm lại trên toàn bộ bài toán
+        Schedule merged = new Schedule(problem);
+        for (int c = 0; c < count; c++) {
+            int[] ordinals = components.get(c);
+            Schedule part = results[c];
+            CompiledProblem subProblem = subProblems[c];
+            for (int k = 0; k < ordinals.length; k++) {
+                merged.setGene(ordinals[k], part.day[k], part.startPeriod[k], part.roomIdx[k]);
+                if (part.lecturer[k] >= 0) {
+                    merged.lecturer[ordinals[k]] = problem.lecturerOrdinal(subProblem.lecturers[part.lecturer[k]]);
+                }
             }
-            this.fitness = other.fitness;
-            this.isFitnessChanged = other.isFitnessChanged;
         }
+        evaluator.evaluate(merged);
+        return merged;
     }
 
-    @Data
-    @AllArgsConstructor
-    class Gene {
-        int day;        // 2-8
-        int startPeriod;// 1, 4, 7, 10, 13
-        Room room;
-        
-        public Gene(Gene other) {
-            this.day = other.day;
-            this.startPeriod = other.startPeriod;
-            this.room = other.room;
+    // Gộp tiến độ các thành phần: fitness toàn bài = tổng fitness tốt nhất của từng thành phần (chúng độc lập).
+    // Ảnh chụp tiến độ cũng gộp: khi bên theo dõi cần, mọi thành phần còn chạy cùng chụp 1 lượt rồi mới gửi tổng
+    // (thành phần đã xong dùng ảnh chụp cuối của nó)
+    private static final class ComponentMonitor {
+        private final SolverMonitor target;
+        private final double[] best;
+        private final int[] generations;
+        private int generation = -1;
+
+        private final SolverProgress[] progress; // Ảnh chụp gần nhất của từng thành phần
+        private final boolean[] pending;         // Thành phần chưa gửi ảnh chụp của lượt đang mở
+        private final boolean[] claimed;         // Đã có luồng (đảo) của thành phần nhận chụp lượt này
+        private final boolean[] finished;
+        private int waiting;                     // Số thành phần chưa gửi của lượt đang mở (0: không có lượt nào)
+
+        ComponentMonitor(SolverMonitor target, int count) {
+            this.target = target;
+            this.best = new double[count];
+            this.generations = new int[count];
+            this.progress = new SolverProgress[count];
+            this.pending = new boolean[count];
+            this.claimed = new boolean[count];
+            this.finished = new boolean[count];
+            Arrays.fill(best, Double.NEGATIVE_INFINITY);
         }
-    }
 
-    // --- HÀM CHÍNH ---
-    public String run(Long semesterId) {
-        List<CourseOffering> offerings = offeringRepo.findBySemester_Id(semesterId);
-        List<Room> rooms = roomRepo.findAll();
+        SolverMonitor forComponent(int component) {
+            return new SolverMonitor() {
+                @Override
+                public boolean isCancelRequested() {
+                    return target.isCancelRequested();
+                }
 
-        if (offerings.isEmpty()) return "Không có lớp học phần nào để xếp.";
+                @Override
+                public void onGeneration(int generation, double bestFitness) {
+                    report(component, generation, bestFitness);
+                }
 
-        // 1. Khởi tạo quần thể
-        List<Schedule> population = initializePopulation(offerings, rooms);
-        Schedule bestSchedule = population.get(0);
+                @Override
+                public boolean isProgressDue() {
+                    return progressDue(component);
+                }
 
-        // 2. Vòng lặp tiến hóa
-        for (int generation = 0; generation < GENERATIONS; generation++) {
-            // Parallel Stream để tăng tốc tính toán trên CPU đa nhân
-            population.parallelStream().forEach(sch -> {
-                if (sch.isFitnessChanged) calculateFitness(sch, offerings);
-            });
+                @Override
+                public void onProgress(SolverProgress p) {
+                    collect(component, p);
+                }
+            };
+        }
 
-            // Sắp xếp: Fitness cao nhất (gần 0 nhất) lên đầu
-            population.sort((s1, s2) -> Double.compare(s2.fitness, s1.fitness));
-            
-            // Cập nhật Best Schedule
-            if (population.get(0).fitness > bestSchedule.fitness) {
-                bestSchedule = new Schedule(population.get(0));
+        private synchronized void report(int component, int generation, double bestFitness) {
+            best[component] = Math.max(best[component], bestFitness);
+            generations[component] = Math.max(generations[component], generation);
+            this.generation = Math.max(this.generation, generation);
+            double total = 0;
+            for (double b : best) {
+                if (b == Double.NEGATIVE_INFINITY) return; // Còn thành phần chưa báo
+                total += b;
             }
+            target.onGeneration(this.generation, total);
+        }
 
-            // Log tiến độ (mỗi 50 thế hệ)
-            if (generation % 50 == 0) {
-                System.out.println("GA Gen " + generation + " | Best Fitness: " + bestSchedule.fitness);
+        // Mở lượt chụp mới khi bên theo dõi cần; mỗi thành phần chỉ 1 luồng nhận chụp trong 1 lượt
+        private synchronized boolean progressDue(int component) {
+            if (waiting == 0 && target.isProgressDue()) {
+                for (int c = 0; c < pending.length; c++) {
+                    pending[c] = !finished[c];
+                    claimed[c] = false;
+                    if (pending[c]) waiting++;
+                }
             }
-            
-            // Điều kiện dừng sớm: Nếu fitness >= -10 (Gần như hoàn hảo)
-            if (bestSchedule.fitness >= -10) break; 
+            if (!pending[component] || claimed[component]) return false;
+            claimed[component] = true;
+            return true;
+        }
 
-            // Tạo thế hệ mới
-            population = evolvePopulation(population, offerings, rooms);
+        private synchronized void collect(int component, SolverProgress p) {
+            progress[component] = p;
+            if (!pending[component]) return;
+            pending[component] = false;
+            if (--waiting == 0) publish();
         }
 
-        // 3. Lưu kết quả
-        saveSchedule(bestSchedule, offerings);
-        return "Best Fitness Score: " + bestSchedule.fitness;
-    }
+        // Thành phần đã dừng: giữ ảnh chụp cuối, không chờ nó ở các lượt sau
+        synchronized void finish(int component, Schedule result, FitnessEvaluator evaluator) {
+            finished[component] = true;
+            progress[component] = new SolverProgress(generations[component], result.fitness, result.fitness,
+                    evaluator.countHardViolations(result));
+            if (pending[component]) collect(component, progress[component]);
+        }
 
-    // --- LOGIC KHỞI TẠO & SINH GEN THÔNG MINH (QUAN TRỌNG) ---
-    private List<Schedule> initializePopulation(List<CourseOffering> offerings, List<Room> rooms) {
-        List<Schedule> pop = new ArrayList<>();
-        for (int i = 0; i < POPULATION_SIZE; i++) {
-            Schedule sch = new Schedule();
-            for (CourseOffering off : offerings) {
-                sch.genes.put(off.getId(), randomGene(off, rooms));
+        private void publish() {
+            double bestTotal = 0, averageTotal = 0;
+            Map<String, Integer> violations = new LinkedHashMap<>();
+            for (SolverProgress p : progress) {
+                if (p == null) return; // Còn thành phần chưa có ảnh chụp nào
+                bestTotal += p.bestFitness();
+                averageTotal += p.averageFitness();
+                p.hardViolations().forEach((kind, n) -> violations.merge(kind, n, Integer::sum));
             }
-            pop.add(sch);
+            target.onProgress(new SolverProgress(generation, bestTotal, averageTotal, violations));
         }
-        return pop;
     }
 
-    private Gene randomGene(CourseOffering off, List<Room> rooms) {
-        boolean isOnline = isOnlineCourse(off);
-        Set<String> allowedTypes = getAllowedRoomTypes(off);
-        int plannedSize = off.getPlannedSize() != null ? off.getPlannedSize() : 0;
-
-        // 1. Chọn ngày (Day)
-        int day;
-        // Quy chế: chỉ học từ Thứ 2 đến Thứ 7 (2-7), không xếp Chủ nhật
-        day = 2 + (int)(Math.random() * 6);
-
-        // 2. Chọn Kíp (Start Period) - TUÂN THỦ QUY CHẾ
-        int[] validSlots;
-        if (isOnline) {
-            validSlots = new int[]{13}; // Bắt buộc tối
-        } else {
-            // Offline: 1, 4, 7, 10
-            validSlots = new int[]{1, 4, 7, 10}; 
+    // 1 quần thể, chấm điểm song song trên các core
+    private Schedule runSinglePopulation(CompiledProblem problem, FitnessEvaluator evaluator, SolverOptions options,
+                                         Termination termination, WarmStart warmStart, SplittableRandom runRandom,
+                                         SolverMonitor monitor, SharedIncumbent shared) {
+        // 1. Khởi tạo quần thể
+        Island island = new Island(problem, evaluator, options, options.resolvePopulationSize(POPULATION_SIZE),
+                warmStart, runRandom.split(), true);
+        int syncInterval = Math.max(1, options.getPortfolioSyncInterval());
+
+        // 2. Vòng lặp tiến hóa
+        int lastImprovement = 0;
+        for (int generation = 0; generation < termination.maxGenerations; generation++) {
+            // Parallel Stream để tăng tốc tính toán trên CPU đa nhân
+            if (island.evaluate()) lastImprovement = generation;
+
+            monitor.onGeneration(generation, island.best.fitness);
+            if (monitor.isProgressDue()) monitor.onProgress(island.progress(generation));
+            if (shared != null && generation % syncInterval == 0) island.share(shared);
+
+            // Điều kiện dừng sớm: đạt ngưỡng mục tiêu, chững lại quá lâu, hết giờ hoặc bị hủy
+            // (dừng giữa 2 thế hệ, giữ cá thể tốt nhất hiện có)
+            if (termination.targetReached(island.best.fitness)) break;
+            if (termination.stagnated(generation, lastImprovement)) break;
+            if (termination.timeUp() || monitor.isCancelRequested()) break;
+
+            // Tạo thế hệ mới (lai ghép, đột biến & chấm điểm song song)
+            island.evolve();
         }
-        int start = validSlots[(int)(Math.random() * validSlots.length)];
-
-        // 3. Chọn Phòng (Room) - Lọc đúng loại ngay từ đầu
-        List<Room> candidates = rooms.stream()
-            .filter(r -> allowedTypes.contains(normalizeRoomType(r.getType())))
-            .filter(r -> r.getCapacity() != null && r.getCapacity() >= plannedSize) // Đủ chỗ
-                .collect(Collectors.toList());
-
-        // Fallback: Nếu không có phòng vừa vặn, lấy tạm phòng đúng loại (chấp nhận thiếu chỗ để phạt sau)
-        if (candidates.isEmpty()) {
-            candidates = rooms.stream()
-                .filter(r -> allowedTypes.contains(normalizeRoomType(r.getType())))
-                    .collect(Collectors.toList());
+        return island.best;
+    }
+
+    // --- MÔ HÌNH ĐẢO: mỗi đảo tiến hóa độc lập trên 1 luồng, định kỳ trao đổi cá thể tốt nhất ---
+    private Schedule runIslands(CompiledProblem problem, FitnessEvaluator evaluator, SolverOptions options,
+                                Termination termination, WarmStart warmStart, SplittableRandom runRandom,
+                                SolverMonitor monitor, SharedIncumbent shared) {
+        int islandCount = options.resolveIslands();
+        int islandSize = options.resolveIslandPopulationSize(options.resolvePopulationSize(POPULATION_SIZE), islandCount);
+        int interval = Math.max(1, options.getMigrationInterval());
+        int migrants = Math.max(0, Math.min(options.getMigrants(), islandSize / 2));
+
+        Island[] islands = new Island[islandCount];
+        for (int i = 0; i < islandCount; i++) {
+            // Mỗi đảo chạy tuần tự trên luồng riêng của nó
+            islands[i] = new Island(problem, evaluator, options, islandSize, warmStart, runRandom.split(), false);
+            islands[i].allocateOutbox(migrants);
         }
-        // Fallback cuối cùng: Random đại (hiếm khi xảy ra nếu data chuẩn)
-        if (candidates.isEmpty()) candidates = rooms;
 
-        Room selectedRoom = candidates.get((int)(Math.random() * candidates.size()));
+        // Phaser làm rào chắn tại mỗi lần di cư; đảo nào dừng thì tự hủy đăng ký để các đảo khác không phải chờ
+        Phaser migrationBarrier = new Phaser(islandCount);
+        // Lượt di cư sớm nhất có đảo đạt ngưỡng dừng: các đảo chỉ cùng dừng tại rào chắn của lượt đó
+        // (không dừng lệch nhau theo tốc độ luồng) để kết quả với cùng seed luôn giống nhau
+        AtomicInteger targetReachedEpoch = new AtomicInteger(Integer.MAX_VALUE);
+        AtomicBoolean failed = new AtomicBoolean(false);
+
+        // Mỗi đảo là 1 tác vụ trong pool tính toán (đang chạy bên trong SolverExecutors.compute).
+        // Chờ rào chắn qua Phaser là managed blocking nên pool tự bù luồng khi số đảo > số luồng.
+        List<ForkJoinTask<?>> tasks = new ArrayList<>();
+        for (int i = 0; i < islandCount; i++) {
+            int index = i;
+            tasks.add(ForkJoinTask.adapt(() -> {
+                try {
+                    evolveIsland(index, islands, options, interval, termination, migrationBarrier,
+                            targetReachedEpoch, failed, monitor, shared);
+                } catch (RuntimeException e) {
+                    failed.set(true);
+                    throw e;
+                } finally {
+                    migrationBarrier.arriveAndDeregister();
+                }
+            }));
+        }
+        // Chờ tất cả các đảo kết thúc (không hủy đảo nào giữa chừng để không kẹt rào chắn)
+        forkAndJoin(tasks, "Island GA failed");
 
-        return new Gene(day, start, selectedRoom);
+        Island bestIsland = islands[0];
+        for (Island island : islands) {
+            if (island.best.fitness > bestIsland.best.fitness) bestIsland = island;
+        }
+        return bestIsland.best;
     }
 
-    // --- HÀM TÍNH ĐIỂM (FITNESS FUNCTION) ---
-    private void calculateFitness(Schedule schedule, List<CourseOffering> allOfferings) {
-        double score = 0;
-        
-        // Map kiểm tra trùng: Key -> OfferingID
-        Map<String, Long> roomMap = new HashMap<>(); // "Day-Period-RoomID"
-        Map<String, Long> lecMap = new HashMap<>();  // "Day-Period-LecID"
-        Map<String, Long> classMap = new HashMap<>(); // "Day-Period-ClassCode"
-
-        for (CourseOffering off : allOfferings) {
-            Gene gene = schedule.genes.get(off.getId());
-
-            // 0. Không xếp Chủ nhật
-            if (gene.day == 8) score -= 5000;
-
-            int duration = getSessionDuration(off);
-            int plannedSize = off.getPlannedSize() != null ? off.getPlannedSize() : 0;
-
-            // 1. Phạt Vi phạm Loại phòng & Sức chứa (Dù randomGene đã lọc, nhưng mutation có thể gây lỗi)
-            if (!getAllowedRoomTypes(off).contains(normalizeRoomType(gene.room.getType()))) score -= 1000;
-            if (gene.room.getCapacity() != null && gene.room.getCapacity() < plannedSize) score -= 500;
-
-            // 2. Phạt Vi phạm Kíp chuẩn (Double check)
-            boolean isOnline = isOnlineCourse(off);
-            if (isOnline && gene.startPeriod != 13) score -= 1000;
-            if (!isOnline && gene.startPeriod == 13) score -= 100; // Phạt nhẹ, tránh học tối nếu ko cần thiết
-
-            // 3. Kiểm tra trùng lặp theo từng tiết
-            for (int t = 0; t < duration; t++) {
-                int period = gene.startPeriod + t;
-                
-                // Trùng Phòng (Trừ Online)
-                if (!"ONLINE".equalsIgnoreCase(gene.room.getType())) {
-                    String key = gene.day + "-" + period + "-" + gene.room.getId();
-                    if (roomMap.containsKey(key)) score -= 1000;
-                    else roomMap.put(key, off.getId());
-                }
+    private void evolveIsland(int index, Island[] islands, SolverOptions options, int interval,
+                              Termination termination, Phaser migrationBarrier, AtomicInteger targetReachedEpoch, AtomicBoolean failed,
+                              SolverMonitor monitor, SharedIncumbent shared) {
+        Island island = islands[index];
+        SolverOptions.MigrationTopology topology = options.getTopology();
+        int syncInterval = Math.max(1, options.getPortfolioSyncInterval());
+        boolean migrating = island.outbox[0].length > 0;
+        int lastImprovement = 0;
+        double globalBest = Double.NEGATIVE_INFINITY;
+        for (int generation = 0; generation < termination.maxGenerations; generation++) {
+            boolean improved = island.evaluate();
+
+            monitor.onGeneration(generation, island.best.fitness);
+            if (monitor.isProgressDue()) monitor.onProgress(island.progress(generation));
+            if (shared != null && generation % syncInterval == 0) island.share(shared);
+            // Bị hủy / hết giờ thì đảo tự dừng (hủy đăng ký khỏi rào chắn nên các đảo khác không bị kẹt)
+            if (failed.get() || monitor.isCancelRequested() || termination.timeUp()) return;
+
+            boolean targetReached = termination.targetReached(island.best.fitness);
+            if (!migrating) {
+                // Không di cư: mỗi đảo tự dừng theo điểm của chính nó
+                if (improved) lastImprovement = generation;
+                if (targetReached || termination.stagnated(generation, lastImprovement)) return;
+            } else {
+                int epoch = generation / interval;
+                if (targetReached) targetReachedEpoch.accumulateAndGet(epoch, Math::min);
+
+                if ((generation + 1) % interval == 0) {
+                    int parity = epoch & 1;
+                    island.exportMigrants(parity);
+                    migrationBarrier.arriveAndAwaitAdvance();
+                    if (failed.get() || targetReachedEpoch.get() <= epoch) return;
+
+                    // Chững lại tính trên fitness tốt nhất toàn cục, đọc từ hộp thư (di dân đầu = cá thể tốt nhất
+                    // của mỗi đảo) sau rào chắn: mọi đảo thấy cùng 1 giá trị nên cùng dừng ở cùng lượt
+                    double epochBest = Double.NEGATIVE_INFINITY;
+                    for (Island other : islands) epochBest = Math.max(epochBest, other.outbox[parity][0].fitness);
+                    if (epochBest > globalBest) {
+                        globalBest = epochBest;
+                        lastImprovement = generation;
+                    }
+                    if (termination.stagnated(generation, lastImprovement)) return;
 
-                // Trùng Giảng viên
-                if (off.getLecturer() != null) {
-                    String key = gene.day + "-" + period + "-" + off.getLecturer().getId();
-                    if (lecMap.containsKey(key)) score -= 1000;
-                    else lecMap.put(key, off.getId());
+                    island.importMigrants(islands, index, topology, parity);
                 }
+            }
+
+            island.evolve();
+        }
+    }
+
+    /**
+     * Một quần thể (đảo) với 2 buffer được tái sử dụng qua các thế hệ.
+     * Chế độ 1 quần thể chính là 1 đảo duy nhất.
+     */
+    private final class Island {
+        private final CompiledProblem problem;
+        private final FitnessEvaluator evaluator;
+        private final boolean parallel;
+        private final SolverOptions options;
+        // Tìm kiếm cục bộ (null nếu tắt): chạy trên các cá thể ưu tú sau khi chấm điểm, hoặc trên mọi cá thể con
+        private final LocalSearch localSearch;
+        private final SolverOptions.LocalSearchMode localSearchMode;
+        // Xếp phòng 2 pha (null nếu phòng nằm trong gen): ghép lại phòng cho mọi cá thể trước khi chấm điểm
+        private final RoomMatcher roomMatcher;
+        private Schedule[] population;
+        private Schedule[] nextPopulation;
+        private final Schedule best;
+
+        // Luồng ngẫu nhiên riêng cho từng vị trí trong quần thể: vị trí i luôn dùng slotRandom[i]
+        // nên luồng nào sinh cá thể nào cũng được, không tranh chấp 1 Random dùng chung
+        private final SplittableRandom[] slotRandom;
+
+        // Hộp thư di dân, 2 bộ luân phiên theo lượt để đảo nhanh không ghi đè lúc đảo chậm đang đọc
+        private Schedule[][] outbox = new Schedule[][]{new Schedule[0], new Schedule[0]};
+
+        Island(CompiledProblem problem, FitnessEvaluator evaluator, SolverOptions options, int size, WarmStart warmStart,
+               SplittableRandom random, boolean parallel) {
+            this.problem = problem;
+            this.evaluator = evaluator;
+            this.parallel = parallel;
+            this.options = options;
+            this.localSearchMode = options.getLocalSearch();
+            this.localSearch = localSearchMode != SolverOptions.LocalSearchMode.NONE
+                    ? new LocalSearch(problem, evaluator, options.getLocalSearchMaxMoves())
+                    : null;
+            this.roomMatcher = options.getRoomAssignment() == SolverOptions.RoomAssignmentMode.MATCHING
+                    ? new RoomMatcher(problem)
+                    : null;
+            this.slotRandom = new SplittableRandom[size];
+            for (int i = 0; i < size; i++) slotRandom[i] = random.split();
+            this.population = initializePopulation(problem, options, slotRandom, warmStart, roomMatcher, parallel);
+            this.nextPopulation = new Schedule[size];
+            for (int i = 0; i < size; i++) nextPopulation[i] = new Schedule(problem);
+            this.best = new Schedule(problem);
+            this.best.fitness = Double.NEGATIVE_INFINITY;
+        }
+
+        void allocateOutbox(int migrants) {
+            outbox = new Schedule[2][migrants];
+            for (Schedule[] box : outbox) {
+                for (int k = 0; k < migrants; k++) box[k] = new Schedule(problem);
+            }
+        }
+
+        // Chấm điểm, sắp xếp (tốt nhất lên đầu) và cập nhật cá thể tốt nhất; trả về true nếu cá thể tốt nhất được cải thiện
+        boolean evaluate() {
+            // Chấm các cá thể chưa có điểm (quần thể khởi tạo); con lai đã được chấm ngay trong evolve()
+            if (parallel) Arrays.stream(population).parallel().forEach(evaluator::ensureEvaluated);
+            else for (Schedule sch : population) evaluator.ensureEvaluated(sch);
+
+            // Sắp xếp: Fitness cao nhất (gần 0 nhất) lên đầu
+            Arrays.sort(population, BY_FITNESS_DESC);
+
+            // Memetic: tìm kiếm cục bộ trên các cá thể ưu tú (mỗi vị trí dùng luồng ngẫu nhiên của chính nó)
+            if (localSearchMode == SolverOptions.LocalSearchMode.ELITES) {
+                IntStream elites = IntStream.range(0, Math.max(1, eliteCount(population.length)));
+                (parallel ? elites.parallel() : elites).forEach(i -> localSearch.improve(population[i], slotRandom[i]));
+                Arrays.sort(population, BY_FITNESS_DESC);
+            }
+
+            // Cập nhật Best Schedule
+            if (population[0].fitness > best.fitness) {
+                best.copyFrom(population[0]);
+                return true;
+            }
+            return false;
+        }
+
+        // Ảnh chụp tiến độ (gọi sau evaluate(), chỉ khi bên theo dõi yêu cầu)
+        SolverProgress progress(int generation) {
+            double total = 0;
+            for (Schedule sch : population) total += sch.fitness;
+            return new SolverProgress(generation, best.fitness, total / population.length,
+                    evaluator.countHardViolations(best));
+        }
+
+        // Tạo thế hệ mới vào buffer còn lại rồi hoán đổi
+        void evolve() {
+            evolvePopulation(population, nextPopulation, problem, evaluator, options, slotRandom, roomMatcher, parallel,
+                    localSearchMode == SolverOptions.LocalSearchMode.ALL_CHILDREN ? localSearch : null);
+            Schedule[] tmp = population;
+            population = nextPopulation;
+            nextPopulation = tmp;
+        }
 
-                // Trùng Lớp biên chế (Sinh viên)
-                if (off.getTargetClasses() != null) {
-                    for (String cls : off.getTargetClasses().split(";")) {
-                        String key = gene.day + "-" + period + "-" + cls.trim();
-                        if (classMap.containsKey(key)) score -= 200; // Phạt nhẹ hơn trùng phòng
-                        else classMap.put(key, off.getId());
+        // Portfolio: gửi cá thể tốt nhất lên lời giải chung, nhận lại lời giải chung (nếu tốt hơn) vào chỗ cá thể kém nhất.
+        // Cá thể nhận về đã có điểm; cá thể tốt nhất được cập nhật ở lần evaluate() kế tiếp.
+        void share(SharedIncumbent shared) {
+            shared.offer(best);
+            shared.adoptInto(population[population.length - 1], best.fitness);
+        }
+
+        void exportMigrants(int parity) {
+            Schedule[] box = outbox[parity];
+            for (int k = 0; k < box.length; k++) box[k].copyFrom(population[k]);
+        }
+
+        // Thay các cá thể kém nhất bằng di dân từ (các) đảo láng giềng
+        void importMigrants(Island[] islands, int index, SolverOptions.MigrationTopology topology, int parity) {
+            int count = outbox[parity].length;
+            int replaced = 0;
+            if (topology == SolverOptions.MigrationTopology.RING) {
+                Schedule[] box = islands[(index - 1 + islands.length) % islands.length].outbox[parity];
+                for (int k = 0; k < count; k++) {
+                    population[population.length - 1 - replaced++].copyFrom(box[k]);
+                }
+            } else {
+                // Fully connected: lấy count cá thể tốt nhất trong hộp thư của mọi đảo khác
+                int[] cursor = new int[islands.length];
+                for (int k = 0; k < count; k++) {
+                    int from = -1;
+                    for (int j = 0; j < islands.length; j++) {
+                        if (j == index || cursor[j] >= count) continue;
+                        if (from < 0 || islands[j].outbox[parity][cursor[j]].fitness
+                                > islands[from].outbox[parity][cursor[from]].fitness) from = j;
                     }
+                    if (from < 0) break;
+                    population[population.length - 1 - replaced++].copyFrom(islands[from].outbox[parity][cursor[from]++]);
                 }
             }
+            if (replaced > 0) Arrays.sort(population, BY_FITNESS_DESC);
+        }
+    }
 
-            // 4. RÀNG BUỘC CHA - CON (QUAN TRỌNG NHẤT)
-            if (off.getParent() != null) {
-                Gene parentGene = schedule.genes.get(off.getParent().getId());
-                if (parentGene != null && parentGene.day == gene.day) {
-                    int pDuration = getSessionDuration(off.getParent());
-                    int pEnd = parentGene.startPeriod + pDuration - 1;
-                    int cEnd = gene.startPeriod + duration - 1;
-
-                    // Nếu khoảng thời gian giao nhau
-                    if (gene.startPeriod <= pEnd && cEnd >= parentGene.startPeriod) {
-                        score -= 2000; // Phạt cực nặng để GA loại bỏ ngay
+    // --- LOGIC KHỞI TẠO & SINH GEN THÔNG MINH (QUAN TRỌNG) ---
+    // Thứ tự trong quần thể: [lịch đã lưu + bản nhiễu][lịch kiến thiết DSatur][ngẫu nhiên]
+    private Schedule[] initializePopulation(CompiledProblem problem, SolverOptions options, SplittableRandom[] slotRandom,
+                                            WarmStart warmStart, RoomMatcher roomMatcher, boolean parallel) {
+        Schedule[] pop = new Schedule[slotRandom.length];
+        int warmCount = warmStart != null ? warmStart.count(pop.length) : 0;
+        DSaturInitializer constructive = options.getInitializer() == SolverOptions.InitializerMode.DSATUR
+                ? new DSaturInitializer(problem)
+                : null;
+        int constructiveEnd = constructive != null
+                ? warmCount + (int) Math.round((pop.length - warmCount) * Math.max(0, Math.min(1, options.getConstructiveFraction())))
+                : warmCount;
+
+        // Mỗi vị trí chỉ dùng luồng ngẫu nhiên của chính nó nên có thể khởi tạo song song
+        IntStream slots = IntStream.range(0, pop.length);
+        (parallel ? slots.parallel() : slots).forEach(i -> {
+            Schedule sch = new Schedule(problem);
+            if (i < warmCount) {
+                // Cá thể đầu giữ nguyên lịch đã lưu (đã chấm điểm), các cá thể sau là bản nhiễu của nó
+                sch.copyFrom(warmStart.template());
+                if (i > 0) {
+                    for (int g = 0; g < problem.size; g++) {
+                        if (slotRandom[i].nextDouble() < warmStart.perturbation()) {
+                            regenerate(sch, g, problem, slotRandom[i], roomMatcher != null);
+                        }
                     }
+                    sch.isFitnessChanged = true;
+                    sch.basis = warmStart.template(); // Chỉ chấm lại phần bị nhiễu
+                }
+            } else if (i < constructiveEnd) {
+                constructive.build(sch, slotRandom[i]);
+            } else if (roomMatcher != null) {
+                // Phòng xuất phát là phòng ứng viên đầu tiên (lớp không ghép được vẫn ở phòng đúng loại)
+                for (int g = 0; g < problem.size; g++) {
+                    sch.roomIdx[g] = problem.descriptors[g].roomCandidates[0];
+                    randomTime(sch, g, problem, slotRandom[i]);
+                }
+            } else {
+                for (int g = 0; g < problem.size; g++) {
+                    randomGene(sch, g, problem, slotRandom[i]);
                 }
             }
+            if (roomMatcher != null) {
+                roomMatcher.assign(sch);
+                if (i < warmCount) {
+                    // Chấm lại phần phòng bị đổi so với lịch đã lưu
+                    sch.isFitnessChanged = true;
+                    sch.basis = warmStart.template();
+                }
+            }
+            pop[i] = sch;
+        });
+        return pop;
+    }
+
+    // Cấu hình khởi động ấm: tỉ lệ quần thể lấy từ lịch đã lưu và xác suất sinh lại mỗi gen ở các bản nhiễu
+    private record WarmStart(Schedule template, double fraction, double perturbation) {
+        int count(int populationSize) {
+            return (int) Math.round(populationSize * Math.max(0, Math.min(1, fraction)));
+        }
+
+        // Phần lịch đã lưu ứng với 1 bài toán con (ordinals: ordinal gốc của từng gen con)
+        WarmStart restrict(CompiledProblem fullProblem, CompiledProblem subProblem, FitnessEvaluator subEvaluator,
+                           int[] ordinals) {
+            Schedule sub = new Schedule(subProblem);
+            for (int k = 0; k < ordinals.length; k++) {
+                int g = ordinals[k];
+                sub.setGene(k, template.day[g], template.startPeriod[g], template.roomIdx[g]);
+                if (template.lecturer[g] >= 0) {
+                    sub.lecturer[k] = subProblem.lecturerOrdinal(fullProblem.lecturers[template.lecturer[g]]);
+                }
+            }
+            subEvaluator.evaluate(sub);
+            return new WarmStart(sub, fraction, perturbation);
         }
-        schedule.fitness = score;
-        schedule.isFitnessChanged = false;
     }
 
     // --- EVOLUTION HELPERS ---
-    private List<Schedule> evolvePopulation(List<Schedule> pop, List<CourseOffering> offerings, List<Room> rooms) {
-        List<Schedule> newPop = new ArrayList<>();
-        
-        // Elitism: Giữ lại top 5% tốt nhất không qua lai ghép
-        int eliteCount = (int)(POPULATION_SIZE * 0.05);
-        for (int i = 0; i < eliteCount; i++) newPop.add(new Schedule(pop.get(i)));
-
-        // Lai ghép & Đột biến
-        while (newPop.size() < POPULATION_SIZE) {
-            Schedule p1 = tournamentSelection(pop);
-            Schedule p2 = tournamentSelection(pop);
-            Schedule child = crossover(p1, p2, offerings);
-            mutate(child, offerings, rooms);
-            newPop.add(child);
-        }
-        return newPop;
+    // Ghi thế hệ mới vào newPop (đã cấp phát sẵn), không tạo Schedule/Gene mới.
+    // Mỗi vị trí i độc lập (chỉ đọc pop, chỉ ghi newPop[i]) nên có thể sinh song song trên nhiều luồng.
+    private void evolvePopulation(Schedule[] pop, Schedule[] newPop, CompiledProblem problem,
+                                  FitnessEvaluator evaluator, SolverOptions options, SplittableRandom[] slotRandom,
+                                  RoomMatcher roomMatcher, boolean parallel, LocalSearch childSearch) {
+        int eliteCount = eliteCount(pop.length);
+
+        IntStream slots = IntStream.range(0, pop.length);
+        (parallel ? slots.parallel() : slots).forEach(i -> {
+            if (i < eliteCount) {
+                newPop[i].copyFrom(pop[i]);
+                return;
+            }
+
+            // Lai ghép & Đột biến
+            SplittableRandom rnd = slotRandom[i];
+            Schedule p1 = tournamentSelection(pop, options.resolveTournamentSize(TOURNAMENT_SIZE), rnd);
+            Schedule p2 = tournamentSelection(pop, options.resolveTournamentSize(TOURNAMENT_SIZE), rnd);
+            Schedule child = newPop[i];
+            boolean matching = roomMatcher != null;
+            crossover(p1, p2, child, rnd, matching);
+            if (options.getMutation() == SolverOptions.MutationMode.CONFLICT_GUIDED) {
+                mutateConflicts(child, problem, options, rnd, matching);
+            } else {
+                mutate(child, problem, options.resolveMutationRate(MUTATION_RATE), rnd, matching);
+            }
+            // Xếp phòng 2 pha: (ngày, kíp) do lai ghép / đột biến quyết định, phòng ghép lại theo từng kíp
+            if (roomMatcher != null) roomMatcher.assign(child);
+
+            // Chấm điểm ngay khi bố/mẹ gốc còn nguyên trong pop
+            evaluator.ensureEvaluated(child);
+
+            // Memetic: sửa cục bộ từng cá thể con (chạy song song theo vị trí như lai ghép)
+            if (childSearch != null) childSearch.improve(child, rnd);
+        });
+    }
+
+    // Elitism: Giữ lại top 5% tốt nhất không qua lai ghép
+    private static int eliteCount(int populationSize) {
+        return (int)(populationSize * 0.05);
     }
 
-    private Schedule tournamentSelection(List<Schedule> pop) {
+    private Schedule tournamentSelection(Schedule[] pop, int tournamentSize, SplittableRandom rnd) {
         Schedule best = null;
-        for (int i = 0; i < TOURNAMENT_SIZE; i++) {
-            Schedule ind = pop.get((int)(Math.random() * pop.size()));
+        for (int i = 0; i < tournamentSize; i++) {
+            Schedule ind = pop[rnd.nextInt(pop.length)];
             if (best == null || ind.fitness > best.fitness) best = ind;
         }
         return best;
     }
 
-    private Schedule crossover(Schedule p1, Schedule p2, List<CourseOffering> offerings) {
-        Schedule child = new Schedule();
-        for (CourseOffering off : offerings) {
+    // matching: phòng không thuộc gen, con giữ phòng của p1 làm điểm xuất phát cho RoomMatcher
+    private void crossover(Schedule p1, Schedule p2, Schedule child, SplittableRandom rnd, boolean matching) {
+        for (int g = 0; g < child.size(); g++) {
             // Lai ghép đồng nhất (Uniform Crossover): 50/50 gen từ bố/mẹ
-            child.genes.put(off.getId(), Math.random() < 0.5 ? 
-                new Gene(p1.genes.get(off.getId())) : new Gene(p2.genes.get(off.getId())));
+            child.copyGene(g, rnd.nextBoolean() ? p1 : p2);
+            if (matching) child.roomIdx[g] = p1.roomIdx[g];
         }
-        return child;
+        child.isFitnessChanged = true;
+        child.basis = p1; // p1 đã được chấm điểm -> con chỉ cần chấm phần khác p1
     }
 
-    private void mutate(Schedule child, List<CourseOffering> offerings, List<Room> rooms) {
-        for (CourseOffering off : offerings) {
-            if (Math.random() < MUTATION_RATE) {
+    private void mutate(Schedule child, CompiledProblem problem, double mutationRate, SplittableRandom rnd,
+                        boolean matching) {
+        for (int g = 0; g < problem.size; g++) {
+            if (rnd.nextDouble() < mutationRate) {
                 // Đột biến thông minh: Sinh lại gen hợp lệ
-                child.genes.put(off.getId(), randomGene(off, rooms));
+                regenerate(child, g, problem, rnd, matching);
             }
         }
         child.isFitnessChanged = true;
     }
 
-    private void saveSchedule(Schedule best, List<CourseOffering> offerings) {
-        List<CourseOffering> toSave = new ArrayList<>();
-        for (CourseOffering off : offerings) {
-            Gene gene = best.genes.get(off.getId());
-            off.setDayOfWeek(gene.day);
-            off.setStartPeriod(gene.startPeriod);
-            int duration = getSessionDuration(off);
-            off.setEndPeriod(gene.startPeriod + duration - 1);
-            off.setRoom(gene.room);
-            
-            if (best.fitness >= -100) off.setStatus("SCHEDULED");
-            else off.setStatus("ERROR");
-            
-            off.setStatusMessage("GA Fitness: " + (int)best.fitness);
-            toSave.add(off);
-        }
-        offeringRepo.saveAll(toSave);
-    }
-
-    // --- HELPER FUNCTIONS ---
-    private boolean isOnlineCourse(CourseOffering off) {
-        String type = off.getClassType() != null ? off.getClassType().toUpperCase() : "";
-        String name = off.getCourse().getName().toUpperCase();
-        return type.equals("ELN") || type.equals("COURSERA") 
-            || name.contains("COURSERA") || Boolean.TRUE.equals(off.getCourse().getIsOnline());
-    }
-
-    private Set<String> getAllowedRoomTypes(CourseOffering off) {
-        if (isOnlineCourse(off)) return Set.of("ONLINE");
-
-        String required = off.getRequiredRoomType();
-        if (required != null && !required.trim().isEmpty()) {
-            return Set.of(normalizeRoomType(required));
+    // Đột biến theo xung đột: gen đang vi phạm (cờ lấy từ bố/mẹ khi lai ghép) bị sinh lại với xác suất cao,
+    // gen sạch chỉ thỉnh thoảng mới bị đụng tới để giữ đa dạng
+    private void mutateConflicts(Schedule child, CompiledProblem problem, SolverOptions options, SplittableRandom rnd,
+                                 boolean matching) {
+        for (int g = 0; g < problem.size; g++) {
+            double rate = child.conflict[g] ? options.getConflictMutationRate() : options.getCleanMutationRate();
+            if (rnd.nextDouble() < rate) {
+                regenerate(child, g, problem, rnd, matching);
+            }
         }
-
-        // Default rules when not forced:
-        // - TH: allow LAB or PC
-        // - Others (LT/ALL): allow THEORY or HALL
-        if ("TH".equalsIgnoreCase(off.getClassType())) return Set.of("LAB", "PC");
-        return Set.of("THEORY", "HALL");
-    }
-
-    private static String normalizeRoomType(String type) {
-        if (type == null) return "";
-        return type.trim().toUpperCase();
+        child.isFitnessChanged = true;
     }
 
-    private int getSessionDuration(CourseOffering off) {
-        // Quy chế kíp học: mọi lớp đều học theo 1 kíp = 3 tiết
-        return 3;
+    // Sinh lại gen g; xếp phòng 2 pha thì không bốc phòng (RoomMatcher ghép lại phòng sau đó)
+    private static void regenerate(Schedule sch, int g, CompiledProblem problem, SplittableRandom rnd, boolean matching) {
+        if (matching) randomTime(sch, g, problem, rnd);
+        else randomGene(sch, g, problem, rnd);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,149 @@
+package com.phenikaa.scheduler.core;
+
+import java.util.SplittableRandom;
+
+/**
+ * Tìm kiếm cục bộ (memetic) cho GA: lần lượt xét các gen đang vi phạm, với mỗi gen chọn nước đi tốt nhất
+ * (best-improvement) trong lân cận của nó và chỉ áp dụng nếu fitness tăng:
+ * - đổi kíp: sang (ngày, kíp) hợp lệ khác, giữ phòng
+ * - đổi phòng: sang phòng ứng viên khác (đúng loại), giữ kíp
+ * - đổi chỗ: hoán đổi (ngày, kíp) với 1 lớp học phần khác (cùng loại online/offline)
+ * - đổi giảng viên: sang giảng viên ứng viên khác (chỉ lớp GA tự phân công), giữ kíp và phòng
+ * Mọi nước đi được chấm tăng dần qua {@link FitnessEvaluator#moveGene}; mỗi lời gọi chỉ sửa đúng cá thể được truyền vào
+ * nên có thể chạy song song trên nhiều cá thể.
+ */
+final class LocalSearch {
+
+    // Số lớp được thử hoán đổi cho mỗi gen vi phạm (chọn ngẫu nhiên)
+    private static final int SWAP_PARTNERS = 8;
+    private static final int FIRST_DAY = 2;
+    private static final int LAST_DAY = 7; // Thứ 2 - Thứ 7, không xếp Chủ nhật
+
+    private final CompiledProblem problem;
+    private final FitnessEvaluator evaluator;
+    private final int maxMoves;
+
+    LocalSearch(CompiledProblem problem, FitnessEvaluator evaluator, int maxMoves) {
+        this.problem = problem;
+        this.evaluator = evaluator;
+        this.maxMoves = maxMoves;
+    }
+
+    // Cải thiện cá thể đã chấm điểm; xét tối đa maxMoves gen vi phạm
+    void improve(Schedule schedule, SplittableRandom rnd) {
+        int n = problem.size;
+        if (n == 0) return;
+
+        // Duyệt các gen theo thứ tự ngẫu nhiên, bắt đầu từ 1 vị trí ngẫu nhiên với bước nhảy nguyên tố cùng nhau với n
+        int offset = rnd.nextInt(n);
+        int stride = coprimeStride(n, rnd);
+        int visited = 0;
+        for (int k = 0; k < n && visited < maxMoves; k++) {
+            int g = (int) ((offset + (long) k * stride) % n);
+            if (!evaluator.inConflict(schedule, g)) continue;
+            visited++;
+            improveGene(schedule, g, rnd);
+        }
+        evaluator.markConflicts(schedule);
+    }
+
+    private void improveGene(Schedule schedule, int g, SplittableRandom rnd) {
+        OfferingDescriptor d = problem.descriptors[g];
+        int day0 = schedule.day[g];
+        int start0 = schedule.startPeriod[g];
+        int room0 = schedule.roomIdx[g];
+        int lecturer0 = schedule.lecturer[g];
+
+        double bestDelta = 0;
+        int bestDay = -1, bestStart = -1, bestRoom = -1, bestPartner = -1;
+
+        // 1. Đổi kíp (giữ phòng)
+        int[] starts = d.online ? AbstractSchedulingEngine.ONLINE_SLOTS : AbstractSchedulingEngine.OFFLINE_SLOTS;
+        for (int day = FIRST_DAY; day <= LAST_DAY; day++) {
+            for (int start : starts) {
+                if (day == day0 && start == start0) continue;
+                double delta = evaluator.moveGene(schedule, g, day, start, room0);
+                evaluator.moveGene(schedule, g, day0, start0, room0);
+                if (delta > bestDelta) {
+                    bestDelta = delta;
+                    bestDay = day;
+                    bestStart = start;
+                    bestRoom = room0;
+                    bestPartner = -1;
+                }
+            }
+        }
+
+        // 2. Đổi phòng (giữ kíp), chỉ trong các phòng ứng viên
+        for (int room : d.roomCandidates) {
+            if (room == room0) continue;
+            double delta = evaluator.moveGene(schedule, g, day0, start0, room);
+            evaluator.moveGene(schedule, g, day0, start0, room0);
+            if (delta > bestDelta) {
+                bestDelta = delta;
+                bestDay = day0;
+                bestStart = start0;
+                bestRoom = room;
+                bestPartner = -1;
+            }
+        }
+
+        // 3. Hoán đổi (ngày, kíp) với lớp khác cùng loại
+        for (int k = 0; k < SWAP_PARTNERS; k++) {
+            int h = rnd.nextInt(problem.size);
+            if (h == g || problem.descriptors[h].online != d.online) continue;
+            int dayH = schedule.day[h];
+            int startH = schedule.startPeriod[h];
+            if (dayH == day0 && startH == start0) continue;
+
+            double delta = evaluator.moveGene(schedule, g, dayH, startH, room0)
+                    + evaluator.moveGene(schedule, h, day0, start0, schedule.roomIdx[h]);
+            evaluator.moveGene(schedule, h, dayH, startH, schedule.roomIdx[h]);
+            evaluator.moveGene(schedule, g, day0, start0, room0);
+            if (delta > bestDelta) {
+                bestDelta = delta;
+                bestDay = dayH;
+                bestStart = startH;
+                bestRoom = room0;
+                bestPartner = h;
+            }
+        }
+
+        // 4. Đổi giảng viên (giữ kíp, phòng)
+        int bestLecturer = lecturer0;
+        for (int lecturer : d.lecturerCandidates) {
+            if (lecturer == lecturer0) continue;
+            double delta = evaluator.moveGene(schedule, g, day0, start0, room0, lecturer);
+            evaluator.moveGene(schedule, g, day0, start0, room0, lecturer0);
+            if (delta > bestDelta) {
+                bestDelta = delta;
+                bestDay = day0;
+                bestStart = start0;
+                bestRoom = room0;
+                bestPartner = -1;
+                bestLecturer = lecturer;
+            }
+        }
+
+        if (bestDelta <= 0) return;
+        if (bestPartner >= 0) {
+            evaluator.moveGene(schedule, bestPartner, day0, start0, schedule.roomIdx[bestPartner]);
+        }
+        evaluator.moveGene(schedule, g, bestDay, bestStart, bestRoom, bestLecturer);
+    }
+
+    private static int coprimeStride(int n, SplittableRandom rnd) {
+        int stride = 1 + rnd.nextInt(n);
+        while (gcd(stride, n) != 1) stride++;
+        return stride;
+    }
+
+    private static int gcd(int a, int b) {
+        while (b != 0) {
+            int t = a % b;
+            a = b;
+            b = t;
+        }
+        return a;
+    }
+}
@@ -0,0 +1,96 @@
+package com.phenikaa.scheduler.core;
+
+import java.util.Arrays;
+
+/**
+ * Bảng chiếm chỗ theo (tiết, phòng), (tiết, giảng viên), (tiết, lớp biên chế), kèm số buổi dạy của từng giảng viên.
+ * Mỗi ô là bộ đếm số lớp học phần đang chiếm ô đó: ô có c lớp bị phạt (c - 1) lần,
+ * đúng như cách chấm "đã có trong map thì phạt" trước đây, nhưng cho phép gỡ gen ra để chấm điểm tăng dần.
+ */
+final class OccupancyGrid {
+
+    static final int FIRST_DAY = 2;        // Thứ 2
+    static final int DAYS = 7;             // Thứ 2 - Chủ nhật (2-8)
+    static final int PERIODS_PER_DAY = 15; // Tiết 1-15 (kíp tối 13-15)
+    static final int SLOTS = DAYS * PERIODS_PER_DAY;
+
+    private final short[] rooms;
+    private final short[] lecturers;
+    private final short[] classes;
+    private final short[] loads; // Số lớp học phần mỗi giảng viên đang dạy
+
+    OccupancyGrid(int roomCount, int lecturerCount, int classCount) {
+        this.rooms = new short[roomCount * SLOTS];
+        this.lecturers = new short[lecturerCount * SLOTS];
+        this.classes = new short[classCount * SLOTS];
+        this.loads = new short[lecturerCount];
+    }
+
+    static int slot(int day, int period) {
+        return (day - FIRST_DAY) * PERIODS_PER_DAY + (period - 1);
+    }
+
+    void clear() {
+        Arrays.fill(rooms, (short) 0);
+        Arrays.fill(lecturers, (short) 0);
+        Arrays.fill(classes, (short) 0);
+        Arrays.fill(loads, (short) 0);
+    }
+
+    void copyFrom(OccupancyGrid other) {
+        System.arraycopy(other.rooms, 0, rooms, 0, rooms.length);
+        System.arraycopy(other.lecturers, 0, lecturers, 0, lecturers.length);
+        System.arraycopy(other.classes, 0, classes, 0, classes.length);
+        System.arraycopy(other.loads, 0, loads, 0, loads.length);
+    }
+
+    // add*: trả về số lớp đã chiếm ô TRƯỚC khi thêm (> 0 nghĩa là trùng)
+    int addRoom(int slot, int room) {
+        return rooms[room * SLOTS + slot]++;
+    }
+
+    int addLecturer(int slot, int lecturer) {
+        return lecturers[lecturer * SLOTS + slot]++;
+    }
+
+    int addClass(int slot, int cls) {
+        return classes[cls * SLOTS + slot]++;
+    }
+
+    int addLoad(int lecturer) {
+        return loads[lecturer]++;
+    }
+
+    // remove*: trả về số lớp còn lại SAU khi gỡ (> 0 nghĩa là gỡ được 1 lần trùng)
+    int removeRoom(int slot, int room) {
+        return --rooms[room * SLOTS + slot];
+    }
+
+    int removeLecturer(int slot, int lecturer) {
+        return --lecturers[lecturer * SLOTS + slot];
+    }
+
+    int removeClass(int slot, int cls) {
+        return --classes[cls * SLOTS + slot];
+    }
+
+    int removeLoad(int lecturer) {
+        return --loads[lecturer];
+    }
+
+    int roomCount(int slot, int room) {
+        return rooms[room * SLOTS + slot];
+    }
+
+    int lecturerCount(int slot, int lecturer) {
+        return lecturers[lecturer * SLOTS + slot];
+    }
+
+    int classCount(int slot, int cls) {
+        return classes[cls * SLOTS + slot];
+    }
+
+    int load(int lecturer) {
+        return loads[lecturer];
+    }
+}
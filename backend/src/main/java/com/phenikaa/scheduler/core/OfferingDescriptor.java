@@ -0,0 +1,36 @@
+package com.phenikaa.scheduler.core;
+
+/**
+ * Mô tả bất biến, chỉ gồm kiểu nguyên thủy, của một CourseOffering sau bước biên dịch bài toán.
+ * Vòng lặp GA (sinh gen, chấm điểm, lưu kết quả) chỉ đọc từ đây, không chạm vào entity/String.
+ */
+final class OfferingDescriptor {
+
+    final boolean online;          // ELN / Coursera -> phòng ONLINE, kíp tối
+    final long allowedRoomTypes;   // Bitmask loại phòng cho phép (theo CompiledProblem.roomTypeMask)
+    final int plannedSize;
+    final int duration;            // Số tiết của 1 buổi
+    final int lecturer;            // Ordinal giảng viên, -1 nếu chưa phân công (hoặc do GA chọn)
+    final int[] lecturerCandidates; // Ordinal GV ứng viên khi GA phân công cùng lúc xếp lịch (rỗng: giữ lecturer)
+    final int[] classes;           // Ordinal các lớp biên chế
+    final int parent;              // Ordinal lớp CHA, -1 nếu không có
+    final int[] children;          // Ordinal các lớp CON
+    final int[] pinnedRelatives;   // Lớp cha / con được ghim: (ngày, tiết đầu, tiết cuối) liên tiếp, 3 số mỗi lớp
+    final int[] roomCandidates;    // Ordinal phòng ứng viên (đã tính fallback)
+
+    OfferingDescriptor(boolean online, long allowedRoomTypes, int plannedSize, int duration, int lecturer,
+                       int[] lecturerCandidates, int[] classes, int parent, int[] children, int[] pinnedRelatives,
+                       int[] roomCandidates) {
+        this.online = online;
+        this.allowedRoomTypes = allowedRoomTypes;
+        this.plannedSize = plannedSize;
+        this.duration = duration;
+        this.lecturer = lecturer;
+        this.lecturerCandidates = lecturerCandidates;
+        this.classes = classes;
+        this.parent = parent;
+        this.children = children;
+        this.pinnedRelatives = pinnedRelatives;
+        this.roomCandidates = roomCandidates;
+    }
+}
@@ -0,0 +1,212 @@
+package com.phenikaa.scheduler.core;
+
+import org.springframework.beans.BeanUtils;
+import org.springframework.beans.BeansException;
+import org.springframework.beans.MutablePropertyValues;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.validation.DataBinder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * Engine portfolio: chạy song song nhiều engine / bộ tham số trên cùng bài toán (mỗi cấu hình 1 tác vụ trong pool
+ * tính toán), định kỳ dùng chung lời giải tốt nhất qua {@link SharedIncumbent}, và trả về lời giải tốt nhất kèm
+ * cấu hình đã tìm ra nó. Dừng khi mọi cấu hình hết ngân sách (timeLimitSeconds / số vòng), khi 1 cấu hình đạt
+ * ngưỡng mục tiêu, hoặc khi bị hủy. Cấu hình tụt quá xa lời giải chung có thể bị dừng sớm (portfolioKillRatio).
+ */
+@Service
+public class PortfolioSolver extends AbstractSchedulingEngine {
+
+    // Bộ cấu hình mặc định: GA đột biến theo xung đột, SA và 2 biến thể Tabu
+    static final String DEFAULT_PORTFOLIO =
+            "GA:mutation=CONFLICT_GUIDED;SA;TABU;TABU:kempeChainRate=0.2,tabuTenure=20";
+    private static final double TARGET_FITNESS = -10;
+
+    // Các engine thành viên (Spring không tự tiêm chính bean này vào danh sách)
+    @Autowired private List<AbstractSchedulingEngine> engines;
+
+    @Override
+    public String getName() {
+        return "PORTFOLIO";
+    }
+
+    @Override
+    int defaultGenerations() {
+        return 0; // Mỗi thành viên dùng mặc định của engine của nó
+    }
+
+    @Override
+    double defaultTargetFitness() {
+        return TARGET_FITNESS;
+    }
+
+    @Override
+    EngineResult solve(CompiledProblem problem, SolverOptions options, Termination termination,
+                       SplittableRandom runRandom, SolverMonitor monitor, SharedIncumbent shared) {
+        long startNanos = System.nanoTime();
+        List<Member> members = parse(options);
+        SharedIncumbent.Board board = new SharedIncumbent.Board(problem);
+        PortfolioMonitor portfolioMonitor = new PortfolioMonitor(monitor, board, termination, members.size(),
+                options.getPortfolioKillRatio(), Math.max(1, options.getPortfolioSyncInterval()));
+
+        EngineResult[] results = new EngineResult[members.size()];
+        List<ForkJoinTask<?>> tasks = new ArrayList<>();
+        for (int i = 0; i < members.size(); i++) {
+            int index = i;
+            Member member = members.get(i);
+            // Ngân sách thời gian tính từ lúc portfolio bắt đầu, số vòng theo mặc định của engine thành viên
+            Termination memberTermination = Termination.of(member.options(), member.engine().defaultGenerations(),
+                    member.engine().defaultTargetFitness(), startNanos);
+            SplittableRandom memberRandom = runRandom.split();
+            SolverMonitor memberMonitor = portfolioMonitor.forMember(index);
+            SharedIncumbent memberShared = new SharedIncumbent(board, member.label());
+            tasks.add(ForkJoinTask.adapt(() -> {
+                results[index] = member.engine().solve(problem, member.options(), memberTermination, memberRandom,
+                        memberMonitor, memberShared);
+            }));
+        }
+        forkAndJoin(tasks, "Portfolio member failed");
+
+        // Lời giải tốt nhất trong các thành viên; hòa điểm thì ưu tiên cấu hình đã tìm ra lời giải chung
+        int winner = 0;
+        for (int i = 0; i < members.size(); i++) {
+            if (results[i].best().fitness > results[winner].best().fitness) winner = i;
+        }
+        String winnerLabel = members.get(winner).label();
+        if (board.fitness() >= results[winner].best().fitness && board.source() != null) winnerLabel = board.source();
+
+        return new EngineResult(results[winner].best(), " | Winner: " + winnerLabel
+                + " | Configurations: " + members.size()
+                + (portfolioMonitor.killedCount() > 0 ? " | Killed: " + portfolioMonitor.killedCount() : ""));
+    }
+
+    // 1 cấu hình trong portfolio: engine + tham số riêng (tham số chung lấy từ lần chạy)
+    private record Member(String label, AbstractSchedulingEngine engine, SolverOptions options) { }
+
+    private List<Member> parse(SolverOptions options) {
+        String spec = options.getPortfolio() != null && !options.getPortfolio().isBlank()
+                ? options.getPortfolio()
+                : DEFAULT_PORTFOLIO;
+        List<Member> members = new ArrayList<>();
+        for (String entry : spec.split(";")) {
+            String trimmed = entry.trim();
+            if (trimmed.isEmpty()) continue;
+
+            int colon = trimmed.indexOf(':');
+            String engineName = (colon >= 0 ? trimmed.substring(0, colon) : trimmed).trim();
+            AbstractSchedulingEngine engine = engines.stream()
+                    .filter(e -> e != this && e.getName().equalsIgnoreCase(engineName))
+                    .findFirst()
+                    .orElseThrow(() -> new IllegalArgumentException("Unknown portfolio engine: " + engineName));
+
+            SolverOptions memberOptions = new SolverOptions();
+            BeanUtils.copyProperties(options, memberOptions);
+            memberOptions.setAlgorithm(engine.getName());
+            memberOptions.setPortfolio(null);
+            if (colon >= 0) bind(memberOptions, trimmed.substring(colon + 1), trimmed);
+            members.add(new Member(trimmed, engine, memberOptions));
+        }
+        if (members.isEmpty()) throw new IllegalArgumentException("Portfolio has no configurations: " + spec);
+        return members;
+    }
+
+    // Gán "thamSố=giáTrị,thamSố=giáTrị" vào SolverOptions (cùng cơ chế bind như query param của API)
+    private static void bind(SolverOptions target, String assignments, String entry) {
+        MutablePropertyValues values = new MutablePropertyValues();
+        for (String assignment : assignments.split(",")) {
+            if (assignment.isBlank()) continue;
+            int eq = assignment.indexOf('=');
+            if (eq <= 0) throw new IllegalArgumentException("Invalid portfolio parameter '" + assignment + "' in " + entry);
+            values.add(assignment.substring(0, eq).trim(), assignment.substring(eq + 1).trim());
+        }
+        DataBinder binder = new DataBinder(target);
+        binder.setIgnoreUnknownFields(false);
+        try {
+            binder.bind(values);
+        } catch (BeansException e) {
+            throw new IllegalArgumentException("Invalid portfolio configuration " + entry + ": " + e.getMessage(), e);
+        }
+        if (binder.getBindingResult().hasErrors()) {
+            throw new IllegalArgumentException("Invalid portfolio configuration " + entry + ": "
+                    + binder.getBindingResult().getAllErrors());
+        }
+    }
+
+    // Gộp tiến độ các thành viên cho bên theo dõi, dừng sớm thành viên tụt hậu và dừng tất cả khi 1 bên đạt mục tiêu
+    private static final class PortfolioMonitor {
+        private final SolverMonitor target;
+        private final SharedIncumbent.Board board;
+        private final Termination termination;
+        private final double killRatio;
+        private final int syncInterval;
+        private final AtomicIntegerArray killed; // killed[i] = 1: thành viên i đã bị dừng sớm
+        private int generation = -1;
+        private double best = Double.NEGATIVE_INFINITY;
+
+        PortfolioMonitor(SolverMonitor target, SharedIncumbent.Board board, Termination termination, int memberCount,
+                         double killRatio, int syncInterval) {
+            this.target = target;
+            this.killed = new AtomicIntegerArray(memberCount);
+            this.board = board;
+            this.termination = termination;
+            this.killRatio = killRatio;
+            this.syncInterval = syncInterval;
+        }
+
+        SolverMonitor forMember(int index) {
+            return new SolverMonitor() {
+                @Override
+                public boolean isCancelRequested() {
+                    return target.isCancelRequested() || isKilled(index)
+                            || termination.targetReached(board.fitness());
+                }
+
+                @Override
+                public void onGeneration(int generation, double bestFitness) {
+                    report(index, generation, bestFitness);
+                }
+
+                @Override
+                public boolean isProgressDue() {
+                    return target.isProgressDue();
+                }
+
+                @Override
+                public void onProgress(SolverProgress progress) {
+                    target.onProgress(new SolverProgress(progress.generation(),
+                            Math.max(progress.bestFitness(), board.fitness()),
+                            progress.averageFitness(), progress.hardViolations()));
+                }
+            };
+        }
+
+        boolean isKilled(int index) {
+            return killed.get(index) != 0;
+        }
+
+        int killedCount() {
+            int count = 0;
+            for (int i = 0; i < killed.length(); i++) count += killed.get(i);
+            return count;
+        }
+
+        private void report(int index, int generation, double bestFitness) {
+            // Tụt hậu: điểm phạt lớn hơn killRatio lần điểm phạt của lời giải chung (xét từ lần trao đổi đầu tiên)
+            double incumbent = board.fitness();
+            if (killRatio > 0 && generation >= syncInterval && incumbent != Double.NEGATIVE_INFINITY
+                    && bestFitness < incumbent * Math.max(1, killRatio)) {
+                killed.compareAndSet(index, 0, 1);
+            }
+            synchronized (this) {
+                this.generation = Math.max(this.generation, generation);
+                this.best = Math.max(this.best, Math.max(bestFitness, incumbent));
+                target.onGeneration(this.generation, this.best);
+            }
+        }
+    }
+}
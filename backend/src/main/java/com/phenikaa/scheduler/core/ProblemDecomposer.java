@@ -0,0 +1,79 @@
+package com.phenikaa.scheduler.core;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Tách bài toán thành các thành phần liên thông độc lập: 2 lớp học phần chỉ có thể xung đột nếu
+ * chung giảng viên, chung lớp biên chế, là cha - con của nhau, hoặc có chung phòng vật lý ứng viên.
+ * Các thành phần không có cạnh nối thì xếp riêng được mà không làm thay đổi tổng điểm phạt.
+ */
+final class ProblemDecomposer {
+
+    private ProblemDecomposer() {
+    }
+
+    // Mỗi thành phần là mảng ordinal tăng dần; các thành phần xếp theo ordinal nhỏ nhất (ổn định giữa các lần chạy)
+    static List<int[]> components(CompiledProblem problem) {
+        int n = problem.size;
+        int[] parent = new int[n];
+        for (int i = 0; i < n; i++) parent[i] = i;
+
+        // Nối các lớp cùng giảng viên / cùng lớp biên chế / cùng phòng vật lý ứng viên qua 1 đại diện (lớp gặp đầu tiên)
+        int[] lecturerRep = filled(problem.lecturerCount);
+        int[] classRep = filled(problem.classCount);
+        int[] roomRep = filled(problem.rooms.length);
+        for (int g = 0; g < n; g++) {
+            OfferingDescriptor d = problem.descriptors[g];
+            if (d.lecturer >= 0) join(parent, g, lecturerRep, d.lecturer);
+            for (int l : d.lecturerCandidates) join(parent, g, lecturerRep, l); // GA tự chọn: có thể trùng với mọi ứng viên
+            for (int cls : d.classes) join(parent, g, classRep, cls);
+            for (int room : d.roomCandidates) {
+                if (!problem.roomVirtual[room]) join(parent, g, roomRep, room); // Phòng ONLINE không gây trùng phòng
+            }
+            if (d.parent >= 0) union(parent, g, d.parent);
+        }
+
+        int[] componentOf = new int[n];
+        Arrays.fill(componentOf, -1);
+        List<List<Integer>> groups = new ArrayList<>();
+        for (int g = 0; g < n; g++) {
+            int root = find(parent, g);
+            if (componentOf[root] < 0) {
+                componentOf[root] = groups.size();
+                groups.add(new ArrayList<>());
+            }
+            groups.get(componentOf[root]).add(g);
+        }
+
+        List<int[]> components = new ArrayList<>(groups.size());
+        for (List<Integer> group : groups) components.add(group.stream().mapToInt(Integer::intValue).toArray());
+        return components;
+    }
+
+    private static int[] filled(int size) {
+        int[] a = new int[size];
+        Arrays.fill(a, -1);
+        return a;
+    }
+
+    private static void join(int[] parent, int g, int[] rep, int key) {
+        if (rep[key] < 0) rep[key] = g;
+        else union(parent, g, rep[key]);
+    }
+
+    private static void union(int[] parent, int a, int b) {
+        int ra = find(parent, a);
+        int rb = find(parent, b);
+        if (ra != rb) parent[Math.max(ra, rb)] = Math.min(ra, rb);
+    }
+
+    private static int find(int[] parent, int x) {
+        while (parent[x] != x) {
+            parent[x] = parent[parent[x]]; // Nén đường đi
+            x = parent[x];
+        }
+        return x;
+    }
+}
@@ -0,0 +1,55 @@
+package com.phenikaa.scheduler.core;
+
+import com.phenikaa.scheduler.model.Room;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.IntStream;
+
+/**
+ * Chỉ mục phòng ứng viên, dựng 1 lần cho mỗi lần chạy.
+ * Mỗi lớp (tập loại phòng cho phép, sĩ số tối thiểu) ánh xạ tới mảng ordinal phòng đã lọc sẵn,
+ * đã tính luôn các bậc fallback: đúng loại & đủ chỗ -> đúng loại (thiếu chỗ) -> mọi phòng.
+ */
+final class RoomCandidateIndex {
+
+    private record RoomClass(Set<String> allowedTypes, int minCapacity) {}
+
+    private final Room[] rooms;
+    private final String[] normalizedTypes;
+    private final Map<RoomClass, int[]> candidatesByClass = new HashMap<>();
+    private final Map<Set<String>, int[]> typeMatchesByTypes = new HashMap<>();
+    private final int[] allRooms;
+
+    RoomCandidateIndex(Room[] rooms) {
+        this.rooms = rooms;
+        this.normalizedTypes = new String[rooms.length];
+        for (int r = 0; r < rooms.length; r++) {
+            normalizedTypes[r] = CompiledProblem.normalizeRoomType(rooms[r].getType());
+        }
+        this.allRooms = IntStream.range(0, rooms.length).toArray();
+    }
+
+    // Các lớp có cùng (loại phòng, sĩ số) dùng chung một mảng
+    int[] candidates(Set<String> allowedTypes, int minCapacity) {
+        return candidatesByClass.computeIfAbsent(new RoomClass(allowedTypes, minCapacity), this::build);
+    }
+
+    private int[] build(RoomClass key) {
+        int[] typeMatches = typeMatchesByTypes.computeIfAbsent(key.allowedTypes(), types ->
+                IntStream.range(0, rooms.length).filter(r -> types.contains(normalizedTypes[r])).toArray());
+
+        // Lọc đúng loại & đủ chỗ
+        int[] fitting = IntStream.of(typeMatches)
+                .filter(r -> rooms[r].getCapacity() != null && rooms[r].getCapacity() >= key.minCapacity())
+                .toArray();
+        if (fitting.length > 0) return fitting;
+
+        // Fallback: Nếu không có phòng vừa vặn, lấy tạm phòng đúng loại (chấp nhận thiếu chỗ để phạt sau)
+        if (typeMatches.length > 0) return typeMatches;
+
+        // Fallback cuối cùng: Random đại (hiếm khi xảy ra nếu data chuẩn)
+        return allRooms;
+    }
+}
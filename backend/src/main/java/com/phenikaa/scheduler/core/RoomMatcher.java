@@ -0,0 +1,144 @@
+package com.phenikaa.scheduler.core;
+
+import java.util.Arrays;
+
+/**
+ * Xếp phòng 2 pha (roomAssignment=MATCHING): khi đã biết (ngày, kíp) của mọi lớp, phòng trong từng kíp là
+ * bài toán ghép cặp lớp - phòng ứng viên (đúng loại, đủ chỗ). Ghép cặp cực đại theo đường tăng (Kuhn),
+ * xuất phát từ phòng đang gán: lớp nào đang ở phòng ứng viên còn trống thì giữ nguyên, các lớp còn lại tìm
+ * đường tăng. Trùng phòng chỉ còn khi kíp đó có nhiều lớp hơn số phòng ghép được (không thể tránh).
+ * Phòng ảo (ONLINE) không tính trùng nên luôn còn chỗ; phòng của lớp được ghim trùng giờ với kíp thì không ghép.
+ */
+final class RoomMatcher {
+
+    private final CompiledProblem problem;
+    private final int[][] pinnedRooms; // pinnedRooms[s]: phòng bị lớp được ghim chiếm trong kíp bắt đầu ở tiết s
+
+    RoomMatcher(CompiledProblem problem) {
+        this.problem = problem;
+        this.pinnedRooms = pinnedRooms(problem);
+    }
+
+    private static int[][] pinnedRooms(CompiledProblem problem) {
+        int duration = 0;
+        for (OfferingDescriptor d : problem.descriptors) duration = Math.max(duration, d.duration);
+
+        int[][] result = new int[OccupancyGrid.SLOTS][];
+        int[] busy = new int[problem.rooms.length];
+        for (int s = 0; s < OccupancyGrid.SLOTS; s++) {
+            // Chỉ xét các tiết còn trong cùng ngày với tiết bắt đầu
+            int end = Math.min(s + duration, (s / OccupancyGrid.PERIODS_PER_DAY + 1) * OccupancyGrid.PERIODS_PER_DAY);
+            int count = 0;
+            for (int r = 0; r < problem.rooms.length; r++) {
+                for (int p = s; p < end; p++) {
+                    if (problem.background.roomCount(p, r) > 0) {
+                        busy[count++] = r;
+                        break;
+                    }
+                }
+            }
+            result[s] = Arrays.copyOf(busy, count);
+        }
+        return result;
+    }
+
+    // Gán lại phòng cho mọi lớp của schedule (chỉ sửa roomIdx, không chấm điểm); trả về số lớp không ghép được.
+    // Chỉ đọc problem và cấp phát bộ nhớ tạm riêng cho mỗi lời gọi nên gọi song song trên nhiều cá thể được.
+    int assign(Schedule schedule) {
+        int n = problem.size;
+
+        // Nhóm lớp theo kíp (ngày, tiết bắt đầu) bằng đếm phân phối
+        int[] slotStart = new int[OccupancyGrid.SLOTS + 1];
+        for (int g = 0; g < n; g++) slotStart[slotOf(schedule, g) + 1]++;
+        for (int s = 0; s < OccupancyGrid.SLOTS; s++) slotStart[s + 1] += slotStart[s];
+        int[] members = new int[n];
+        int[] cursor = Arrays.copyOf(slotStart, OccupancyGrid.SLOTS);
+        for (int g = 0; g < n; g++) members[cursor[slotOf(schedule, g)]++] = g;
+
+        Matching matching = new Matching(schedule, problem.rooms.length);
+        int[] pending = new int[n];
+        int unmatched = 0;
+        for (int s = 0; s < OccupancyGrid.SLOTS; s++) {
+            if (slotStart[s] == slotStart[s + 1]) continue;
+            matching.nextSlot(pinnedRooms[s]);
+
+            // 1. Giữ phòng hiện tại nếu là phòng ứng viên và chưa có lớp nào trong kíp giữ
+            int pendingCount = 0;
+            for (int k = slotStart[s]; k < slotStart[s + 1]; k++) {
+                int g = members[k];
+                if (!matching.keep(g)) pending[pendingCount++] = g;
+            }
+
+            // 2. Các lớp còn lại: tìm đường tăng (có thể đẩy lớp đã ghép sang phòng ứng viên khác của nó)
+            for (int k = 0; k < pendingCount; k++) {
+                if (!matching.augment(pending[k])) unmatched++; // Giữ nguyên phòng cũ, trùng phòng bị phạt khi chấm
+            }
+        }
+        return unmatched;
+    }
+
+    // Lớp g khác kíp với xếp chuẩn (dữ liệu cũ, tiết lệch) vẫn được nhóm theo tiết bắt đầu; trùng lệch kíp do hàm chấm điểm phạt
+    private static int slotOf(Schedule schedule, int g) {
+        return OccupancyGrid.slot(schedule.day[g], schedule.startPeriod[g]);
+    }
+
+    // Trạng thái ghép cặp của 1 kíp; mảng theo phòng dùng tem (stamp) để khỏi xóa lại giữa các kíp / lần tìm
+    private final class Matching {
+        private final Schedule schedule;
+        private final int[] owner;       // owner[r]: lớp đang giữ phòng r, -1: lớp được ghim (hợp lệ khi ownerStamp[r] == slotStamp)
+        private final int[] ownerStamp;
+        private final int[] visited;     // Phòng đã xét trong lần tìm đường tăng hiện tại
+        private int slotStamp;
+        private int visitStamp;
+
+        Matching(Schedule schedule, int roomCount) {
+            this.schedule = schedule;
+            this.owner = new int[roomCount];
+            this.ownerStamp = new int[roomCount];
+            this.visited = new int[roomCount];
+        }
+
+        void nextSlot(int[] pinned) {
+            slotStamp++;
+            for (int r : pinned) take(-1, r);
+        }
+
+        boolean keep(int g) {
+            int r = schedule.roomIdx[g];
+            // Mảng phòng ứng viên luôn tăng dần (RoomCandidateIndex lọc theo ordinal)
+            if (Arrays.binarySearch(problem.descriptors[g].roomCandidates, r) < 0) return false;
+            if (problem.roomVirtual[r]) return true;
+            if (ownerStamp[r] == slotStamp) return false;
+            take(g, r);
+            return true;
+        }
+
+        boolean augment(int g) {
+            visitStamp++;
+            return tryAssign(g);
+        }
+
+        // Đệ quy theo đường tăng; độ sâu tối đa bằng số lớp trong kíp
+        private boolean tryAssign(int g) {
+            for (int r : problem.descriptors[g].roomCandidates) {
+                if (problem.roomVirtual[r]) {
+                    schedule.roomIdx[g] = r;
+                    return true;
+                }
+                if (visited[r] == visitStamp) continue;
+                visited[r] = visitStamp;
+                if (ownerStamp[r] != slotStamp || (owner[r] >= 0 && tryAssign(owner[r]))) {
+                    take(g, r);
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private void take(int g, int r) {
+            owner[r] = g;
+            ownerStamp[r] = slotStamp;
+            if (g >= 0) schedule.roomIdx[g] = r;
+        }
+    }
+}
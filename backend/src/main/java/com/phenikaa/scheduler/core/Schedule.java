@@ -0,0 +1,74 @@
+package com.phenikaa.scheduler.core;
+
+/**
+ * Nhiễm sắc thể dạng structure-of-arrays: gen thứ i là (day[i], startPeriod[i], roomIdx[i], lecturer[i])
+ * của offering có ordinal i trong {@link CompiledProblem}.
+ * Các mảng được cấp phát một lần và tái sử dụng qua các thế hệ.
+ * Mỗi cá thể giữ bảng chiếm chỗ của riêng nó để {@link FitnessEvaluator} chấm điểm tăng dần.
+ */
+final class Schedule {
+
+    final int[] day;         // 2-8
+    final int[] startPeriod; // 1, 4, 7, 10, 13
+    final int[] roomIdx;     // Ordinal phòng trong CompiledProblem.rooms
+    // Ordinal giảng viên (-1: chưa phân công). Cố định theo offering, trừ lớp có lecturerCandidates (GA tự chọn)
+    final int[] lecturer;
+
+    // Bảng chiếm chỗ tương ứng với các gen hiện tại (hợp lệ khi !isFitnessChanged)
+    final OccupancyGrid grid;
+
+    double fitness;
+    boolean isFitnessChanged;
+
+    // conflict[i]: gen i đang bị phạt, ghi lại khi chấm điểm (chỉ khi bật đột biến theo xung đột).
+    // Ở cá thể con trước khi chấm, đây là cờ của gen tương ứng bên bố/mẹ mà nó được sao chép từ đó.
+    final boolean[] conflict;
+
+    // Cá thể đã chấm điểm mà gen được sao chép từ đó (null nếu phải chấm lại toàn bộ)
+    Schedule basis;
+
+    Schedule(CompiledProblem problem) {
+        int size = problem.size;
+        this.day = new int[size];
+        this.startPeriod = new int[size];
+        this.roomIdx = new int[size];
+        this.lecturer = new int[size];
+        for (int i = 0; i < size; i++) {
+            OfferingDescriptor d = problem.descriptors[i];
+            lecturer[i] = d.lecturerCandidates.length > 0 ? d.lecturerCandidates[0] : d.lecturer;
+        }
+        this.conflict = new boolean[size];
+        this.grid = new OccupancyGrid(problem.rooms.length, problem.lecturerCount, problem.classCount);
+        this.isFitnessChanged = true;
+    }
+
+    int size() {
+        return day.length;
+    }
+
+    void copyFrom(Schedule other) {
+        System.arraycopy(other.day, 0, day, 0, day.length);
+        System.arraycopy(other.startPeriod, 0, startPeriod, 0, startPeriod.length);
+        System.arraycopy(other.roomIdx, 0, roomIdx, 0, roomIdx.length);
+        System.arraycopy(other.lecturer, 0, lecturer, 0, lecturer.length);
+        System.arraycopy(other.conflict, 0, conflict, 0, conflict.length);
+        this.grid.copyFrom(other.grid);
+        this.fitness = other.fitness;
+        this.isFitnessChanged = other.isFitnessChanged;
+        this.basis = other.basis;
+    }
+
+    void copyGene(int i, Schedule other) {
+        day[i] = other.day[i];
+        startPeriod[i] = other.startPeriod[i];
+        roomIdx[i] = other.roomIdx[i];
+        lecturer[i] = other.lecturer[i];
+        conflict[i] = other.conflict[i];
+    }
+
+    void setGene(int i, int d, int start, int room) {
+        day[i] = d;
+        startPeriod[i] = start;
+        roomIdx[i] = room;
+    }
+}
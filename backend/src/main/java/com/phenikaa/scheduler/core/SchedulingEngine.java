@@ -0,0 +1,14 @@
+package com.phenikaa.scheduler.core;
+
+/**
+ * 1 thuật toán xếp lịch: nạp bài toán của 1 kỳ, giải và lưu phân công (ngày, kíp, phòng) vào DB.
+ * Các engine là bean Spring, được chọn theo tên (không phân biệt hoa thường) ở SchedulerService.
+ */
+public interface SchedulingEngine {
+
+    // Tên dùng để chọn engine (VD: "GA", "SA")
+    String getName();
+
+    // Trả về chuỗi tóm tắt kết quả ("Best Fitness Score: ... | Seed: ... | Engine: ...")
+    String run(Long semesterId, SolverOptions options, SolverMonitor monitor);
+}
@@ -0,0 +1,67 @@
+package com.phenikaa.scheduler.core;
+
+/**
+ * Kênh của 1 thành viên portfolio tới lời giải tốt nhất dùng chung ({@link Board}).
+ * Thành viên định kỳ gửi lời giải tốt nhất của mình lên và nhận lại lời giải chung nếu nó tốt hơn.
+ * Các thành viên giải cùng 1 CompiledProblem nên lời giải (kể cả bảng chiếm chỗ) sao chép thẳng được.
+ */
+final class SharedIncumbent {
+
+    private final Board board;
+    private final String member; // Cấu hình của thành viên (ghi lại nguồn gốc lời giải chung)
+
+    SharedIncumbent(Board board, String member) {
+        this.board = board;
+        this.member = member;
+    }
+
+    double fitness() {
+        return board.fitness;
+    }
+
+    // Gửi lời giải (đã chấm điểm) lên; trả về true nếu nó trở thành lời giải chung
+    boolean offer(Schedule schedule) {
+        if (schedule.fitness <= board.fitness) return false; // Đọc volatile trước để khỏi khóa khi không có gì mới
+        return board.offer(schedule, member);
+    }
+
+    // Chép lời giải chung vào target nếu nó tốt hơn fitness hiện có của bên nhận; trả về true nếu đã chép
+    boolean adoptInto(Schedule target, double currentFitness) {
+        if (board.fitness <= currentFitness) return false;
+        return board.copyInto(target, currentFitness);
+    }
+
+    static final class Board {
+        private final Schedule incumbent;
+        private volatile double fitness = Double.NEGATIVE_INFINITY;
+        private String source;
+
+        Board(CompiledProblem problem) {
+            this.incumbent = new Schedule(problem);
+        }
+
+        double fitness() {
+            return fitness;
+        }
+
+        // Cấu hình đã tìm ra lời giải chung hiện tại (null nếu chưa có)
+        synchronized String source() {
+            return source;
+        }
+
+        private synchronized boolean offer(Schedule schedule, String member) {
+            if (schedule.fitness <= fitness) return false;
+            incumbent.copyFrom(schedule);
+            incumbent.basis = null;
+            fitness = schedule.fitness;
+            source = member;
+            return true;
+        }
+
+        private synchronized boolean copyInto(Schedule target, double currentFitness) {
+            if (fitness <= currentFitness) return false;
+            target.copyFrom(incumbent);
+            return true;
+        }
+    }
+}
@@ -0,0 +1,167 @@
+package com.phenikaa.scheduler.core;
+
+import org.springframework.stereotype.Service;
+
+import java.util.SplittableRandom;
+
+/**
+ * Engine luyện kim mô phỏng (Simulated Annealing): chỉ 1 lời giải duy nhất được sửa dần từng gen.
+ * Mỗi bước dời 1 gen (đổi kíp 2 gen, hoặc đổi giảng viên của lớp tự phân công) ngay trên lời giải qua
+ * {@link FitnessEvaluator#moveGene},
+ * nhận / bỏ theo tiêu chuẩn Metropolis, bỏ thì hoàn tác bằng nước đi ngược lại.
+ * Bộ nhớ chỉ gồm 1 cá thể + 3 mảng gen của lời giải tốt nhất (so với 150 cá thể của GA).
+ */
+@Service
+public class SimulatedAnnealing extends AbstractSchedulingEngine {
+
+    // --- CẤU HÌNH SA ---
+    private static final int TEMPERATURE_LEVELS = 300;  // Số mức nhiệt mặc định (maxGenerations)
+    private static final double TARGET_FITNESS = -10;
+    private static final int MOVES_PER_OFFERING = 20;   // Số nước đi mỗi mức nhiệt = hệ số x số lớp
+    private static final int SWAP_SAMPLES = 8;          // Số lần bốc thử bạn đổi kíp cùng loại (online / offline)
+
+    @Override
+    public String getName() {
+        return "SA";
+    }
+
+    @Override
+    int defaultGenerations() {
+        return TEMPERATURE_LEVELS;
+    }
+
+    @Override
+    double defaultTargetFitness() {
+        return TARGET_FITNESS;
+    }
+
+    @Override
+    EngineResult solve(CompiledProblem problem, SolverOptions options, Termination termination,
+                       SplittableRandom runRandom, SolverMonitor monitor, SharedIncumbent shared) {
+        FitnessEvaluator evaluator = new FitnessEvaluator(problem);
+        Trajectory trajectory = new Trajectory(problem, evaluator,
+                initialSchedule(problem, evaluator, options, runRandom.split()), runRandom.split());
+
+        // Làm nguội theo cấp số nhân: T giảm đều từ nhiệt độ đầu xuống nhiệt độ cuối qua maxGenerations mức
+        int levels = termination.maxGenerations;
+        double initialTemperature = Math.max(1e-9, options.getAnnealingInitialTemperature());
+        double finalTemperature = Math.max(1e-9, Math.min(initialTemperature, options.getAnnealingFinalTemperature()));
+        double cooling = levels > 1 ? Math.pow(finalTemperature / initialTemperature, 1.0 / (levels - 1)) : 1;
+        long movesPerLevel = options.getAnnealingMovesPerTemperature() > 0
+                ? options.getAnnealingMovesPerTemperature()
+                : (long) MOVES_PER_OFFERING * problem.size;
+
+        double temperature = initialTemperature;
+        int syncInterval = Math.max(1, options.getPortfolioSyncInterval());
+        int lastImprovement = 0;
+        for (int level = 0; level < levels; level++) {
+            double levelStartBest = trajectory.best.fitness;
+            for (long m = 0; m < movesPerLevel; m++) trajectory.step(temperature);
+            if (trajectory.best.fitness > levelStartBest) lastImprovement = level;
+
+            monitor.onGeneration(level, trajectory.best.fitness);
+            if (monitor.isProgressDue()) {
+                // SA chỉ có 1 lời giải: "trung bình" là fitness của lời giải hiện tại
+                monitor.onProgress(new SolverProgress(level, trajectory.best.fitness, trajectory.current.fitness,
+                        evaluator.countHardViolations(trajectory.best.best())));
+            }
+
+            if (shared != null && level % syncInterval == 0) trajectory.best.share(shared);
+
+            if (termination.targetReached(trajectory.best.fitness)) break;
+            if (termination.stagnated(level, lastImprovement)) break;
+            if (termination.timeUp() || monitor.isCancelRequested()) break;
+
+            temperature *= cooling;
+        }
+        return new EngineResult(trajectory.best.best(), " | Moves/Level: " + movesPerLevel);
+    }
+
+    // Quỹ đạo tìm kiếm: lời giải hiện tại (đã chấm điểm, cập nhật tăng dần) + lời giải tốt nhất (BestSnapshot)
+    private static final class Trajectory {
+        private final CompiledProblem problem;
+        private final FitnessEvaluator evaluator;
+        private final SplittableRandom rnd;
+        final Schedule current;
+        final BestSnapshot best;
+
+        Trajectory(CompiledProblem problem, FitnessEvaluator evaluator, Schedule initial, SplittableRandom rnd) {
+            this.problem = problem;
+            this.evaluator = evaluator;
+            this.rnd = rnd;
+            this.current = initial;
+            this.best = new BestSnapshot(problem, evaluator, initial);
+        }
+
+        // 1 nước đi: dời kíp / đổi phòng / đổi kíp với 1 lớp khác / sinh lại cả gen / đổi giảng viên
+        void step(double temperature) {
+            int g = pickGene(problem, evaluator, current, rnd);
+            OfferingDescriptor d = problem.descriptors[g];
+            int oldDay = current.day[g];
+            int oldStart = current.startPeriod[g];
+            int oldRoom = current.roomIdx[g];
+            int oldLecturer = current.lecturer[g];
+
+            // Đích của g (và của h nếu là nước đổi kíp)
+            int h = -1;
+            int day = oldDay;
+            int start = oldStart;
+            int room = oldRoom;
+            int lecturer = oldLecturer;
+            int[] starts = d.online ? ONLINE_SLOTS : OFFLINE_SLOTS;
+            if (d.lecturerCandidates.length > 1 && rnd.nextDouble() < LECTURER_MOVE_RATE) {
+                // Giữ nguyên (ngày, kíp, phòng), chỉ đổi sang giảng viên ứng viên khác
+                lecturer = d.lecturerCandidates[rnd.nextInt(d.lecturerCandidates.length)];
+            } else {
+                int kind = rnd.nextInt(10);
+                if (kind < 3 && (h = swapPartner(g, d.online)) >= 0) {
+                    // Đổi (ngày, kíp) của g và h, mỗi lớp giữ phòng của mình
+                    day = current.day[h];
+                    start = current.startPeriod[h];
+                } else if (kind < 6) {
+                    room = d.roomCandidates[rnd.nextInt(d.roomCandidates.length)];
+                } else {
+                    day = 2 + rnd.nextInt(6);
+                    start = starts[rnd.nextInt(starts.length)];
+                    if (kind == 9) room = d.roomCandidates[rnd.nextInt(d.roomCandidates.length)];
+                }
+            }
+
+            double delta = apply(g, day, start, room, lecturer, h, oldDay, oldStart);
+
+            // Metropolis: luôn nhận nước đi không làm xấu đi, nước đi xấu đi nhận với xác suất exp(delta / T)
+            boolean accept = delta >= 0 || rnd.nextDouble() < Math.exp(delta / temperature);
+            if (accept && delta < 0 && best.isCurrent()) {
+                // Sắp rời điểm tốt nhất: hoàn tác để chụp lại lời giải trước nước đi này rồi đi lại
+                undo(g, oldDay, oldStart, oldRoom, oldLecturer, h);
+                best.beforeWorsening();
+                apply(g, day, start, room, lecturer, h, oldDay, oldStart);
+            } else if (!accept) {
+                undo(g, oldDay, oldStart, oldRoom, oldLecturer, h);
+                return;
+            }
+            best.afterMove();
+        }
+
+        private double apply(int g, int day, int start, int room, int lecturer, int h, int gDay, int gStart) {
+            double delta = evaluator.moveGene(current, g, day, start, room, lecturer);
+            if (h >= 0) delta += evaluator.moveGene(current, h, gDay, gStart, current.roomIdx[h]);
+            return delta;
+        }
+
+        // Hoàn tác theo thứ tự ngược lại (h nhận lại kíp mà g đang giữ)
+        private void undo(int g, int oldDay, int oldStart, int oldRoom, int oldLecturer, int h) {
+            if (h >= 0) evaluator.moveGene(current, h, current.day[g], current.startPeriod[g], current.roomIdx[h]);
+            evaluator.moveGene(current, g, oldDay, oldStart, oldRoom, oldLecturer);
+        }
+
+        // Lớp khác cùng loại (online / offline) để đổi kíp, -1 nếu không tìm được
+        private int swapPartner(int g, boolean online) {
+            for (int i = 0; i < SWAP_SAMPLES; i++) {
+                int h = rnd.nextInt(problem.size);
+                if (h != g && problem.descriptors[h].online == online) return h;
+            }
+            return -1;
+        }
+    }
+}
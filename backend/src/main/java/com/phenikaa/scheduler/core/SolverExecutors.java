@@ -0,0 +1,79 @@
+package com.phenikaa.scheduler.core;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Các pool luồng riêng của bộ xếp lịch, tách biệt khỏi luồng web và common ForkJoinPool:
+ * - computePool: mọi tính toán song song của GA (chấm điểm, lai ghép, các đảo) chạy ở đây.
+ * - solveExecutor: giới hạn số lần xếp lịch chạy đồng thời, các yêu cầu còn lại xếp hàng chờ.
+ * - progressPublisher: 1 luồng đẩy tiến độ cho client (SSE), để việc gửi qua mạng không chặn luồng GA.
+ */
+public class SolverExecutors {
+
+    private final ForkJoinPool computePool;
+    private final ThreadPoolExecutor solveExecutor;
+    private final ScheduledExecutorService progressPublisher;
+
+    public SolverExecutors(int parallelism, int maxConcurrentSolves, int queueCapacity) {
+        int threads = parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors();
+        AtomicInteger workerSeq = new AtomicInteger();
+        this.computePool = new ForkJoinPool(threads, pool -> {
+            ForkJoinWorkerThread t = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+            t.setName("solver-worker-" + workerSeq.incrementAndGet());
+            return t;
+        }, null, false);
+
+        AtomicInteger solveSeq = new AtomicInteger();
+        int maxSolves = Math.max(1, maxConcurrentSolves);
+        this.solveExecutor = new ThreadPoolExecutor(maxSolves, maxSolves, 0L, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(Math.max(1, queueCapacity)),
+                r -> new Thread(r, "solver-run-" + solveSeq.incrementAndGet()),
+                new ThreadPoolExecutor.AbortPolicy()); // Hàng đợi đầy -> RejectedExecutionException
+
+        this.progressPublisher = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "solver-progress");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    // Đưa 1 lần xếp lịch vào hàng đợi (ném RejectedExecutionException nếu hàng đợi đã đầy)
+    public <T> Future<T> submitSolve(Callable<T> solve) {
+        return solveExecutor.submit(solve);
+    }
+
+    // Chạy định kỳ trên luồng đẩy tiến độ
+    public ScheduledFuture<?> scheduleProgress(Runnable task, long periodMillis) {
+        return progressPublisher.scheduleWithFixedDelay(task, periodMillis, periodMillis, TimeUnit.MILLISECONDS);
+    }
+
+    // Chạy tác vụ bên trong computePool: parallel stream lồng bên trong cũng dùng pool này
+    <T> T compute(Callable<T> task) {
+        try {
+            return computePool.submit(task).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Solver interrupted", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException re) throw re;
+            throw new IllegalStateException("Solver failed", e.getCause());
+        }
+    }
+
+    public void shutdown() {
+        progressPublisher.shutdownNow();
+        solveExecutor.shutdownNow();
+        computePool.shutdownNow();
+    }
+}
@@ -0,0 +1,29 @@
+package com.phenikaa.scheduler.core;
+
+/**
+ * Kênh liên lạc giữa bộ xếp lịch và bên gọi trong lúc đang chạy:
+ * GA báo tiến độ sau mỗi thế hệ và kiểm tra yêu cầu hủy giữa 2 thế hệ.
+ * Ở mô hình đảo, mỗi đảo đều báo nên cài đặt phải an toàn đa luồng.
+ */
+public interface SolverMonitor {
+
+    // Không theo dõi, không bao giờ hủy (dùng cho lời gọi đồng bộ cũ)
+    SolverMonitor NONE = new SolverMonitor() { };
+
+    // Được kiểm tra giữa 2 thế hệ; trả về true thì GA dừng và lưu cá thể tốt nhất hiện có
+    default boolean isCancelRequested() {
+        return false;
+    }
+
+    default void onGeneration(int generation, double bestFitness) {
+    }
+
+    // Có cần ảnh chụp tiến độ chi tiết ở thế hệ này không (bên theo dõi tự giới hạn tần suất).
+    // Chỉ khi trả về true GA mới tính fitness trung bình / đếm vi phạm, để không làm chậm vòng tiến hóa.
+    default boolean isProgressDue() {
+        return false;
+    }
+
+    default void onProgress(SolverProgress progress) {
+    }
+}
@@ -0,0 +1,148 @@
+package com.phenikaa.scheduler.core;
+
+import lombok.Data;
+
+/**
+ * Tham số cho 1 lần chạy bộ xếp lịch (bind trực tiếp từ query param của API /generate).
+ * Giá trị mặc định giữ nguyên hành vi cũ: 1 quần thể duy nhất.
+ */
+@Data
+public class SolverOptions {
+
+    public enum MigrationTopology {
+        RING,            // Đảo i nhận di dân từ đảo i-1
+        FULLY_CONNECTED  // Đảo nhận những cá thể tốt nhất từ tất cả các đảo khác
+    }
+
+    public enum InitializerMode {
+        RANDOM,  // Quần thể đầu sinh ngẫu nhiên hoàn toàn (mặc định)
+        DSATUR   // 1 phần quần thể dựng bằng heuristic tô màu DSatur (gần khả thi ngay từ đầu)
+    }
+
+    public enum MutationMode {
+        UNIFORM,         // Mọi gen cùng xác suất đột biến (mặc định)
+        CONFLICT_GUIDED  // Ưu tiên đột biến các gen đang trùng phòng / giảng viên / lớp / cha - con
+    }
+
+    public enum LocalSearchMode {
+        NONE,         // GA thuần
+        ELITES,       // Tìm kiếm cục bộ trên các cá thể ưu tú mỗi thế hệ
+        ALL_CHILDREN  // Tìm kiếm cục bộ trên mọi cá thể con (chậm hơn mỗi thế hệ, hội tụ nhanh hơn)
+    }
+
+    public enum RoomAssignmentMode {
+        GENE,     // Phòng là 1 phần của gen, thuật toán tự tìm (mặc định)
+        MATCHING  // 2 pha: GA chỉ tìm (ngày, kíp), phòng xếp theo từng kíp bằng ghép cặp cực đại
+    }
+
+    // Engine xếp lịch (theo SchedulingEngine.getName, không phân biệt hoa thường): GA, SA, TABU, PORTFOLIO
+    private String algorithm = "GA";
+
+    // Seed cho bộ sinh số ngẫu nhiên: cùng seed + cùng dữ liệu + cùng tham số -> cùng thời khóa biểu
+    // (không phụ thuộc số luồng). Để trống thì hệ thống tự sinh và trả về trong kết quả.
+    private Long seed;
+
+    // Kiểm tra cận sức chứa (phòng / giảng viên / lớp biên chế) trước khi chạy: bất khả thi thì trả về báo cáo
+    // ngay, không chạy engine và không lưu gì. false: vẫn chạy để lấy lịch ít vi phạm nhất.
+    private boolean feasibilityCheck = true;
+
+    // --- ĐIỀU KIỆN DỪNG (dừng vì lý do nào cũng trả về lịch tốt nhất đã tìm được) ---
+    private int maxGenerations = 0;         // <= 0: mặc định của engine (GA: số thế hệ, SA: số mức nhiệt)
+    private Double targetFitness;           // Dừng khi đạt ngưỡng này (để trống: mặc định của engine)
+    private int stagnationGenerations = 0;  // Dừng nếu N thế hệ liên tiếp không cải thiện (<= 0: tắt)
+    private long timeLimitSeconds = 0;      // Giới hạn thời gian thực (<= 0: không giới hạn; kết quả có thể khác nhau giữa các lần chạy)
+
+    // --- THAM SỐ GA (<= 0 / để trống: mặc định của GA) ---
+    private int populationSize = 0;
+    private Double mutationRate;             // UNIFORM: xác suất sinh lại mỗi gen
+    private int tournamentSize = 0;
+
+    // --- KHỞI ĐỘNG ẤM (WARM START) TỪ LỊCH ĐANG LƯU ---
+    private boolean warmStart = false;
+    private double warmStartFraction = 0.2;     // Tỉ lệ quần thể (mỗi đảo) xuất phát từ lịch đang lưu
+    private double warmStartPerturbation = 0.05; // Xác suất sinh lại từng gen ở các bản nhiễu
+
+    // --- KHỞI TẠO QUẦN THỂ ---
+    private InitializerMode initializer = InitializerMode.RANDOM;
+    private double constructiveFraction = 0.5;  // DSATUR: tỉ lệ cá thể (ngoài phần khởi động ấm) dựng bằng DSatur
+
+    // --- ĐỘT BIẾN ---
+    private MutationMode mutation = MutationMode.UNIFORM;
+    private double conflictMutationRate = 0.1;  // CONFLICT_GUIDED: xác suất sinh lại gen đang vi phạm
+    private double cleanMutationRate = 0.005;   // CONFLICT_GUIDED: xác suất sinh lại gen không vi phạm
+
+    // --- TÌM KIẾM CỤC BỘ (MEMETIC) ---
+    private LocalSearchMode localSearch = LocalSearchMode.NONE;
+    private int localSearchMaxMoves = 30;   // Số gen vi phạm tối đa được xét trên mỗi cá thể mỗi lần
+
+    // --- XẾP PHÒNG ---
+    // MATCHING: GA không bốc / đột biến phòng mà ghép lại phòng cho mọi cá thể trước khi chấm điểm;
+    // mọi engine ghép lại phòng trước khi lưu (chỉ nhận nếu không tệ hơn)
+    private RoomAssignmentMode roomAssignment = RoomAssignmentMode.GENE;
+
+    // --- SỬA XUNG ĐỘT SAU CÙNG (mọi engine, trước khi lưu) ---
+    // Tìm chính xác (quay lui + nhảy lùi) lịch mới cho các lớp còn vi phạm cứng và láng giềng gần của chúng,
+    // giữ nguyên mọi lớp khác. Không tìm được trong giới hạn thì giữ nguyên lịch của engine.
+    private boolean repair = false;
+    private int repairMaxVariables = 40;     // Số lớp tối đa được dời (tối đa 64)
+    private long repairMaxNodes = 200_000;   // Số nút tìm kiếm tối đa
+
+    // --- PHÂN CÔNG GIẢNG VIÊN ---
+    // Lớp chưa có giảng viên: engine chọn giảng viên (trong ứng viên chuyên môn / khoa / trường của AutoAssignService)
+    // cùng lúc với xếp lịch (mọi engine: GA lai ghép / đột biến, SA / Tabu có nước đi đổi giảng viên);
+    // cân bằng tải là ràng buộc mềm. Giảng viên được chọn được lưu cùng lịch.
+    private boolean assignLecturers = false;
+
+    // --- TÁCH BÀI TOÁN ---
+    // Xếp riêng (song song) từng nhóm lớp không chung giảng viên / lớp biên chế / quan hệ cha - con / phòng ứng viên
+    private boolean decompose = false;
+
+    // --- LUYỆN KIM MÔ PHỎNG (algorithm=SA) ---
+    private double annealingInitialTemperature = 2000; // Nhiệt độ đầu (cùng thang với điểm phạt)
+    private double annealingFinalTemperature = 1;      // Nhiệt độ ở mức cuối cùng
+    private long annealingMovesPerTemperature = 0;     // Số nước đi mỗi mức nhiệt (<= 0: tự tính theo số lớp)
+
+    // --- TÌM KIẾM TABU (algorithm=TABU) ---
+    private int tabuTenure = 10;          // Số vòng tối thiểu 1 lớp vừa dời bị cấm dời tiếp (thực tế: ngẫu nhiên tới 2 lần)
+    private int tabuCandidates = 20;      // Số nước đi thử mỗi vòng
+    private double kempeChainRate = 0.5;  // Tỉ lệ nước đi là chuỗi Kempe (còn lại là dời 1 lớp)
+    private long tabuIterations = 0;      // Số vòng mỗi khối (maxGenerations = số khối; <= 0: bằng số lớp)
+
+    // --- PORTFOLIO (algorithm=PORTFOLIO): chạy song song nhiều engine / cấu hình, dùng chung lời giải tốt nhất ---
+    // Các cấu hình cách nhau bởi ';', mỗi cấu hình "ENGINE" hoặc "ENGINE:thamSố=giáTrị,thamSố=giáTrị"
+    // (VD: "GA:populationSize=60,mutationRate=0.02;SA;TABU:tabuTenure=20"). Để trống: bộ cấu hình mặc định.
+    private String portfolio;
+    private int portfolioSyncInterval = 10;  // Số thế hệ / mức nhiệt / khối giữa 2 lần trao đổi lời giải chung
+    private double portfolioKillRatio = 0;   // Dừng cấu hình có điểm phạt > ratio x điểm phạt tốt nhất (<= 0: tắt)
+
+    // --- MÔ HÌNH ĐẢO (ISLAND MODEL) ---
+    private boolean islandModel = false;
+    private int islands = 0;                // <= 0: mỗi core 1 đảo (muốn chạy lại đúng seed thì nên chỉ định rõ)
+    private int islandPopulationSize = 0;   // <= 0: tự chia theo số đảo
+    private int migrationInterval = 20;     // Số thế hệ giữa 2 lần trao đổi
+    private int migrants = 2;               // Số cá thể tốt nhất gửi đi mỗi lần
+    private MigrationTopology topology = MigrationTopology.RING;
+
+    int resolvePopulationSize(int defaultPopulationSize) {
+        return populationSize > 0 ? populationSize : defaultPopulationSize;
+    }
+
+    double resolveMutationRate(double defaultMutationRate) {
+        return mutationRate != null ? mutationRate : defaultMutationRate;
+    }
+
+    int resolveTournamentSize(int defaultTournamentSize) {
+        return tournamentSize > 0 ? tournamentSize : defaultTournamentSize;
+    }
+
+    int resolveIslands() {
+        if (!islandModel) return 1;
+        return islands > 0 ? islands : Runtime.getRuntime().availableProcessors();
+    }
+
+    int resolveIslandPopulationSize(int defaultPopulationSize, int islandCount) {
+        if (islandPopulationSize > 0) return islandPopulationSize;
+        // Không để quần thể mỗi đảo quá nhỏ (cần đủ chỗ cho tournament & elitism)
+        return Math.max(20, defaultPopulationSize / islandCount);
+    }
+}
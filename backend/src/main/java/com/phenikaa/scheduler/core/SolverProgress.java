@@ -0,0 +1,15 @@
+package com.phenikaa.scheduler.core;
+
+import java.util.Map;
+
+/**
+ * Ảnh chụp tiến độ của bộ xếp lịch tại 1 thế hệ (chỉ tạo khi bên theo dõi cần, xem {@link SolverMonitor#isProgressDue}).
+ * Ở mô hình đảo, fitness trung bình và số vi phạm lấy từ đảo gửi báo cáo.
+ */
+public record SolverProgress(
+        int generation,
+        double bestFitness,
+        double averageFitness,
+        Map<String, Integer> hardViolations // Số vi phạm cứng của cá thể tốt nhất, theo loại
+) {
+}
@@ -0,0 +1,250 @@
+package com.phenikaa.scheduler.core;
+
+import org.springframework.stereotype.Service;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+/**
+ * Engine tìm kiếm Tabu trên 1 lời giải duy nhất. Mỗi vòng lặp thử 1 mẫu nước đi, áp dụng nước đi tốt nhất
+ * không bị cấm (kể cả khi làm xấu đi), rồi cấm các lớp vừa dời bị dời tiếp trong 1 số vòng.
+ * Nước đi tabu vẫn được nhận nếu cho ra lời giải tốt nhất từ trước tới giờ (aspiration).
+ * Có 2 loại nước đi, đều chấm tăng dần qua {@link FitnessEvaluator#moveGene}:
+ * - Dời 1 lớp: sang (ngày, kíp) khác, sang phòng khác, hoặc cả hai; lớp tự phân công còn có thể đổi giảng viên.
+ * - Chuỗi Kempe: đổi 2 kíp A, B cho cả thành phần liên thông chứa lớp được chọn trong đồ thị xung đột
+ *   ({@link ConflictGraph}) thu hẹp về các lớp đang ở A hoặc B. Trùng giảng viên / lớp / cha - con giữa
+ *   A và B không tăng thêm, chỉ phải chấm lại phần phòng.
+ */
+@Service
+public class TabuSearch extends AbstractSchedulingEngine {
+
+    // --- CẤU HÌNH TABU ---
+    private static final int ITERATION_BLOCKS = 300;    // Số khối vòng lặp mặc định (maxGenerations)
+    private static final double TARGET_FITNESS = -10;
+    private static final int MAX_CHAIN_LENGTH = 64;     // Chuỗi Kempe dài hơn thì bỏ (đổi quá nhiều lớp 1 lúc)
+
+    @Override
+    public String getName() {
+        return "TABU";
+    }
+
+    @Override
+    int defaultGenerations() {
+        return ITERATION_BLOCKS;
+    }
+
+    @Override
+    double defaultTargetFitness() {
+        return TARGET_FITNESS;
+    }
+
+    @Override
+    EngineResult solve(CompiledProblem problem, SolverOptions options, Termination termination,
+                       SplittableRandom runRandom, SolverMonitor monitor, SharedIncumbent shared) {
+        FitnessEvaluator evaluator = new FitnessEvaluator(problem);
+        Search search = new Search(problem, evaluator, ConflictGraph.of(problem),
+                initialSchedule(problem, evaluator, options, runRandom.split()), options, runRandom.split());
+        long iterationsPerBlock = options.getTabuIterations() > 0 ? options.getTabuIterations() : problem.size;
+
+        int syncInterval = Math.max(1, options.getPortfolioSyncInterval());
+        int lastImprovement = 0;
+        for (int block = 0; block < termination.maxGenerations; block++) {
+            double blockStartBest = search.best.fitness;
+            for (long i = 0; i < iterationsPerBlock; i++) search.iterate();
+            if (search.best.fitness > blockStartBest) lastImprovement = block;
+
+            monitor.onGeneration(block, search.best.fitness);
+            if (monitor.isProgressDue()) {
+                // Tabu chỉ có 1 lời giải: "trung bình" là fitness của lời giải hiện tại
+                monitor.onProgress(new SolverProgress(block, search.best.fitness, search.current.fitness,
+                        evaluator.countHardViolations(search.best.best())));
+            }
+
+            if (shared != null && block % syncInterval == 0) search.best.share(shared);
+
+            if (termination.targetReached(search.best.fitness)) break;
+            if (termination.stagnated(block, lastImprovement)) break;
+            if (termination.timeUp() || monitor.isCancelRequested()) break;
+        }
+        return new EngineResult(search.best.best(), " | Kempe Moves: " + search.kempeMoves);
+    }
+
+    // Trạng thái tìm kiếm: lời giải hiện tại, lời giải tốt nhất và danh sách tabu (theo lớp học phần)
+    private static final class Search {
+        private final CompiledProblem problem;
+        private final FitnessEvaluator evaluator;
+        private final ConflictGraph graph;
+        private final SplittableRandom rnd;
+        final Schedule current;
+        final BestSnapshot best;
+
+        private final int tenure;
+        private final int candidates;
+        private final double kempeChainRate;
+        private final long[] tabuUntil; // Lớp g không được dời cho tới vòng tabuUntil[g] (trừ aspiration)
+        private long iteration;
+        long kempeMoves;
+
+        private Move trial = new Move();   // Nước đi đang thử
+        private Move chosen = new Move();  // Nước đi tốt nhất của vòng hiện tại
+        private final int[] chainMark;     // Đánh dấu lớp đã vào chuỗi Kempe (theo chainStamp)
+        private int chainStamp;
+
+        Search(CompiledProblem problem, FitnessEvaluator evaluator, ConflictGraph graph, Schedule initial,
+               SolverOptions options, SplittableRandom rnd) {
+            this.problem = problem;
+            this.evaluator = evaluator;
+            this.graph = graph;
+            this.rnd = rnd;
+            this.current = initial;
+            this.best = new BestSnapshot(problem, evaluator, initial);
+            this.tenure = Math.max(1, options.getTabuTenure());
+            this.candidates = Math.max(1, options.getTabuCandidates());
+            this.kempeChainRate = options.getKempeChainRate();
+            this.tabuUntil = new long[problem.size];
+            this.chainMark = new int[problem.size];
+        }
+
+        void iterate() {
+            iteration++;
+            double chosenDelta = Double.NEGATIVE_INFINITY;
+            chosen.size = 0;
+            for (int c = 0; c < candidates; c++) {
+                int g = pickGene(problem, evaluator, current, rnd);
+                if (!propose(g, trial)) continue;
+
+                // Chấm bằng cách đi thử rồi hoàn tác
+                double delta = trial.apply(evaluator, current);
+                trial.undo(evaluator, current);
+
+                boolean tabu = tabuUntil[g] > iteration;
+                if (tabu && current.fitness + delta <= best.fitness) continue;
+                if (delta > chosenDelta) {
+                    Move tmp = chosen;
+                    chosen = trial;
+                    trial = tmp;
+                    chosenDelta = delta;
+                }
+            }
+            if (chosen.size == 0) return;
+
+            if (chosenDelta < 0) best.beforeWorsening();
+            chosen.apply(evaluator, current);
+            best.afterMove();
+            if (chosen.kempe) kempeMoves++;
+
+            // Thời hạn cấm ngẫu nhiên trong [tenure, 2 * tenure] để tránh lặp chu kỳ
+            for (int i = 0; i < chosen.size; i++) {
+                tabuUntil[chosen.genes[i]] = iteration + tenure + rnd.nextInt(tenure + 1);
+            }
+        }
+
+        // Sinh 1 nước đi cho lớp g vào move; false nếu không dựng được (chuỗi Kempe quá dài)
+        private boolean propose(int g, Move move) {
+            OfferingDescriptor d = problem.descriptors[g];
+            int[] starts = d.online ? ONLINE_SLOTS : OFFLINE_SLOTS;
+            int day = 2 + rnd.nextInt(6);
+            int start = starts[rnd.nextInt(starts.length)];
+
+            if (d.lecturerCandidates.length > 1 && rnd.nextDouble() < LECTURER_MOVE_RATE) {
+                // Giữ nguyên (ngày, kíp, phòng), chỉ đổi sang giảng viên ứng viên khác
+                move.size = 0;
+                move.kempe = false;
+                move.add(g, current.day[g], current.startPeriod[g], current.roomIdx[g],
+                        d.lecturerCandidates[rnd.nextInt(d.lecturerCandidates.length)]);
+                return true;
+            }
+
+            if (rnd.nextDouble() < kempeChainRate) {
+                boolean sameTime = day == current.day[g] && start == current.startPeriod[g];
+                return !sameTime && kempeChain(g, day, start, move);
+            }
+
+            move.size = 0;
+            move.kempe = false;
+            int room = current.roomIdx[g];
+            int lecturer = current.lecturer[g];
+            switch (rnd.nextInt(3)) {
+                case 0 -> move.add(g, day, start, room, lecturer);
+                case 1 -> move.add(g, current.day[g], current.startPeriod[g],
+                        d.roomCandidates[rnd.nextInt(d.roomCandidates.length)], lecturer);
+                default -> move.add(g, day, start, d.roomCandidates[rnd.nextInt(d.roomCandidates.length)], lecturer);
+            }
+            return true;
+        }
+
+        // Chuỗi Kempe của g giữa kíp A (kíp hiện tại của g) và kíp B: duyệt theo chiều rộng trên đồ thị xung đột,
+        // chỉ đi qua các lớp đang ở A hoặc B. Lớp ở A chuyển sang B và ngược lại, mỗi lớp giữ phòng của mình.
+        private boolean kempeChain(int g, int dayB, int startB, Move move) {
+            int dayA = current.day[g];
+            int startA = current.startPeriod[g];
+            if (++chainStamp == 0) {
+                Arrays.fill(chainMark, 0);
+                chainStamp = 1;
+            }
+
+            move.size = 0;
+            chainMark[g] = chainStamp;
+            move.add(g, dayB, startB, current.roomIdx[g], current.lecturer[g]);
+            for (int head = 0; head < move.size; head++) {
+                int m = move.genes[head];
+                for (int i = 0, deg = graph.degree(m); i < deg; i++) {
+                    int h = graph.neighbour(m, i);
+                    if (chainMark[h] == chainStamp) continue;
+                    boolean atA = current.day[h] == dayA && current.startPeriod[h] == startA;
+                    boolean atB = current.day[h] == dayB && current.startPeriod[h] == startB;
+                    if (!atA && !atB) continue;
+                    if (move.size == MAX_CHAIN_LENGTH) return false;
+                    chainMark[h] = chainStamp;
+                    move.add(h, atA ? dayB : dayA, atA ? startB : startA, current.roomIdx[h], current.lecturer[h]);
+                }
+            }
+            move.kempe = move.size > 1;
+            return true;
+        }
+    }
+
+    // 1 nước đi: danh sách lớp và đích (ngày, kíp, phòng, giảng viên) của từng lớp; nhớ giá trị cũ để hoàn tác
+    private static final class Move {
+        final int[] genes = new int[MAX_CHAIN_LENGTH];
+        private final int[] day = new int[MAX_CHAIN_LENGTH];
+        private final int[] startPeriod = new int[MAX_CHAIN_LENGTH];
+        private final int[] roomIdx = new int[MAX_CHAIN_LENGTH];
+        private final int[] lecturer = new int[MAX_CHAIN_LENGTH];
+        private final int[] oldDay = new int[MAX_CHAIN_LENGTH];
+        private final int[] oldStart = new int[MAX_CHAIN_LENGTH];
+        private final int[] oldRoom = new int[MAX_CHAIN_LENGTH];
+        private final int[] oldLecturer = new int[MAX_CHAIN_LENGTH];
+        int size;
+        boolean kempe;
+
+        void add(int g, int d, int start, int room, int lec) {
+            genes[size] = g;
+            day[size] = d;
+            startPeriod[size] = start;
+            roomIdx[size] = room;
+            lecturer[size] = lec;
+            size++;
+        }
+
+        double apply(FitnessEvaluator evaluator, Schedule schedule) {
+            double delta = 0;
+            for (int i = 0; i < size; i++) {
+                int g = genes[i];
+                oldDay[i] = schedule.day[g];
+                oldStart[i] = schedule.startPeriod[g];
+                oldRoom[i] = schedule.roomIdx[g];
+                oldLecturer[i] = schedule.lecturer[g];
+                delta += evaluator.moveGene(schedule, g, day[i], startPeriod[i], roomIdx[i], lecturer[i]);
+            }
+            return delta;
+        }
+
+        // Hoàn tác theo thứ tự ngược lại
+        void undo(FitnessEvaluator evaluator, Schedule schedule) {
+            for (int i = size - 1; i >= 0; i--) {
+                evaluator.moveGene(schedule, genes[i], oldDay[i], oldStart[i], oldRoom[i], oldLecturer[i]);
+            }
+        }
+    }
+}
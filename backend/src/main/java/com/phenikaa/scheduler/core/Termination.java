@@ -0,0 +1,50 @@
+package com.phenikaa.scheduler.core;
+
+/**
+ * Các điều kiện dừng của 1 lần chạy: số thế hệ tối đa, ngưỡng fitness mục tiêu,
+ * số thế hệ liên tiếp không cải thiện và giới hạn thời gian thực.
+ * Dừng vì lý do nào thì GA vẫn trả về cá thể tốt nhất đã tìm được.
+ */
+final class Termination {
+
+    final int maxGenerations;
+    private final double targetFitness;
+    private final int stagnationGenerations; // <= 0: tắt
+    private final long deadlineNanos;        // Long.MAX_VALUE: không giới hạn thời gian
+
+    private Termination(int maxGenerations, double targetFitness, int stagnationGenerations, long deadlineNanos) {
+        this.maxGenerations = maxGenerations;
+        this.targetFitness = targetFitness;
+        this.stagnationGenerations = stagnationGenerations;
+        this.deadlineNanos = deadlineNanos;
+    }
+
+    // startNanos: thời điểm bắt đầu lần chạy (System.nanoTime), giới hạn thời gian tính từ đó
+    static Termination of(SolverOptions options, int defaultGenerations, double defaultTargetFitness, long startNanos) {
+        int maxGenerations = options.getMaxGenerations() > 0 ? options.getMaxGenerations() : defaultGenerations;
+        double target = options.getTargetFitness() != null ? options.getTargetFitness() : defaultTargetFitness;
+        long deadline = options.getTimeLimitSeconds() > 0
+                ? startNanos + options.getTimeLimitSeconds() * 1_000_000_000L
+                : Long.MAX_VALUE;
+        return new Termination(maxGenerations, target, options.getStagnationGenerations(), deadline);
+    }
+
+    // Điều kiện dừng cho 1 phần của bài toán (tách thành phần): ngưỡng mục tiêu nhân với tỉ lệ share,
+    // tổng share các phần bằng 1 nên mọi phần đạt ngưỡng của mình thì tổng điểm đạt ngưỡng toàn bài
+    Termination withTargetShare(double share) {
+        return new Termination(maxGenerations, targetFitness * share, stagnationGenerations, deadlineNanos);
+    }
+
+    boolean targetReached(double bestFitness) {
+        return bestFitness >= targetFitness;
+    }
+
+    // Không cải thiện suốt stagnationGenerations thế hệ kể từ lần cải thiện gần nhất
+    boolean stagnated(int generation, int lastImprovementGeneration) {
+        return stagnationGenerations > 0 && generation - lastImprovementGeneration >= stagnationGenerations;
+    }
+
+    boolean timeUp() {
+        return deadlineNanos != Long.MAX_VALUE && System.nanoTime() - deadlineNanos >= 0;
+    }
+}
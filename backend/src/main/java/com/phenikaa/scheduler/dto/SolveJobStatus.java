@@ -0,0 +1,22 @@
+package com.phenikaa.scheduler.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.time.Instant;
+
+@Data
+@AllArgsConstructor
+public class SolveJobStatus {
+    private String jobId;
+    private Long semesterId;
+    private String status;          // QUEUED, RUNNING, COMPLETED, CANCELLED, FAILED
+    private Integer generation;     // Thế hệ hiện tại (null nếu chưa chạy)
+    private Double bestFitness;     // Fitness tốt nhất tới thời điểm hiện tại
+    private Instant submittedAt;
+    private Instant startedAt;
+    private Instant finishedAt;
+    private Long elapsedMs;         // Thời gian chạy GA (không tính thời gian chờ trong hàng đợi)
+    private String result;          // Thông điệp kết quả của GA khi đã xong
+    private String error;
+}
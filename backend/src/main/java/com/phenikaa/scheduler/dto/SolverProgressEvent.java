@@ -0,0 +1,17 @@
+package com.phenikaa.scheduler.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.Map;
+
+@Data
+@AllArgsConstructor
+public class SolverProgressEvent {
+    private String jobId;
+    private int generation;
+    private double bestFitness;
+    private double averageFitness;
+    private Map<String, Integer> hardViolations; // Số vi phạm cứng theo loại (ROOM_CLASH, LECTURER_CLASH, ...)
+    private long elapsedMs;
+}
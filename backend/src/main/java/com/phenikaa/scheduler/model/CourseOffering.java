@@ -73,6 +73,11 @@ public class CourseOffering {
     private Integer dayOfWeek; 
     private Integer startPeriod;
     private Integer endPeriod;
+
+    // Ghim lịch: bộ xếp lịch giữ nguyên ngày / tiết / phòng hiện tại của lớp này (cần có đủ cả 3),
+    // chỉ coi như phần chiếm chỗ cố định khi xếp các lớp còn lại
+    @Column(name = "pinned")
+    private Boolean pinned = false;
     
     @Column(nullable = false)
     private String status = "PLANNED"; // PLANNED, SCHEDULED, ERROR
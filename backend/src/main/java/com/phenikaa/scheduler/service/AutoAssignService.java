@@ -19,6 +19,12 @@ public class AutoAssignService {
     @Autowired private CourseOfferingRepository offeringRepo;
     @Autowired private LecturerRepository lecturerRepo;
 
+    // Các bit của matchRank
+    private static final int EXPERTISE_MISS = 4;
+    private static final int FACULTY_MISS = 2;
+    private static final int SCHOOL_MISS = 1;
+    private static final int NO_MATCH = EXPERTISE_MISS | FACULTY_MISS | SCHOOL_MISS;
+
     @Transactional
     public String autoAssignLecturers() {
         // 1. Lấy tất cả lớp chưa có giảng viên (hoặc lấy hết để xếp lại từ đầu nếu muốn)
@@ -53,27 +59,9 @@ public class AutoAssignService {
         for (CourseOffering offering : unassignedOfferings) {
             
             Course course = offering.getCourse();
-            Long managingFacultyId = (course != null && course.getManagingFaculty() != null)
-                    ? course.getManagingFaculty().getId()
-                    : null;
-            School managingSchool = resolveManagingSchool(course);
-
-            // Bước 4a: Tìm các ứng viên (Candidates)
-            // 1) Ưu tiên GV có chuyên môn dạy được môn (teachingCourses)
-            // 2) Nếu môn do khoa quản lý: GV cùng khoa có thể được phân
-            // 3) Nếu môn do trường thành viên quản lý: GV thuộc trường đó có thể được phân
-            List<Lecturer> candidates = allLecturers.stream()
-                .filter(l -> {
-                    if (l == null || l.getFaculty() == null) return false;
-                    boolean expertiseMatch = canTeachCourse(l, course);
-                    boolean facultyMatch = managingFacultyId != null && l.getFaculty().getId().equals(managingFacultyId);
-                    boolean schoolMatch = managingSchool != null
-                            && l.getFaculty().getSchool() != null
-                            && managingSchool.getId() != null
-                            && managingSchool.getId().equals(l.getFaculty().getSchool().getId());
-                    return expertiseMatch || facultyMatch || schoolMatch;
-                })
-                .collect(Collectors.toList());
+
+            // Bước 4a: Tìm các ứng viên (Candidates), đã xếp theo mức phù hợp
+            List<Lecturer> candidates = findCandidates(course, allLecturers);
 
             if (candidates.isEmpty()) {
                 skippedCount++; // Không ai dạy được môn này
@@ -83,16 +71,7 @@ public class AutoAssignService {
             // Bước 4b: Sắp xếp ứng viên theo tiêu chí "Ai rảnh việc nhất thì giao" (Load Balancing)
             candidates.sort(
                 Comparator
-                    // Ưu tiên chuyên môn trước
-                    .comparing((Lecturer l) -> !canTeachCourse(l, course))
-                    // Sau đó ưu tiên cùng khoa quản lý môn
-                    .thenComparing(l -> !(managingFacultyId != null && l.getFaculty() != null && managingFacultyId.equals(l.getFaculty().getId())))
-                    // Sau đó ưu tiên cùng trường quản lý môn
-                    .thenComparing(l -> !(managingSchool != null
-                            && l.getFaculty() != null
-                            && l.getFaculty().getSchool() != null
-                            && managingSchool.getId() != null
-                            && managingSchool.getId().equals(l.getFaculty().getSchool().getId())))
+                    .comparingInt((Lecturer l) -> matchRank(l, course))
                     // Cuối cùng cân bằng tải
                     .thenComparingInt(l -> lecturerLoadMap.getOrDefault(l.getId(), 0))
             );
@@ -104,19 +83,11 @@ public class AutoAssignService {
             offering.setLecturer(chosenOne);
             offeringRepo.save(offering);
 
-                // Thống kê kiểu gán
-                boolean isExpertise = canTeachCourse(chosenOne, course);
-                boolean isFaculty = managingFacultyId != null
-                    && chosenOne.getFaculty() != null
-                    && managingFacultyId.equals(chosenOne.getFaculty().getId());
-                boolean isSchool = managingSchool != null
-                    && chosenOne.getFaculty() != null
-                    && chosenOne.getFaculty().getSchool() != null
-                    && managingSchool.getId() != null
-                    && managingSchool.getId().equals(chosenOne.getFaculty().getSchool().getId());
-                if (isExpertise) assignedByExpertise++;
-                else if (isFaculty) assignedByFaculty++;
-                else if (isSchool) assignedBySchool++;
+            // Thống kê kiểu gán
+            int rank = matchRank(chosenOne, course);
+            if ((rank & EXPERTISE_MISS) == 0) assignedByExpertise++;
+            else if ((rank & FACULTY_MISS) == 0) assignedByFaculty++;
+            else if ((rank & SCHOOL_MISS) == 0) assignedBySchool++;
 
             // Tăng workload của giảng viên này lên 1
             lecturerLoadMap.put(chosenOne.getId(), lecturerLoadMap.get(chosenOne.getId()) + 1);
@@ -130,6 +101,54 @@ public class AutoAssignService {
         );
     }
 
+    // Ứng viên dạy được môn, xếp theo mức phù hợp:
+    // 1) GV có chuyên môn dạy được môn (teachingCourses)
+    // 2) Nếu môn do khoa quản lý: GV cùng khoa có thể được phân
+    // 3) Nếu môn do trường thành viên quản lý: GV thuộc trường đó có thể được phân
+    public List<Lecturer> findCandidates(Course course, List<Lecturer> allLecturers) {
+        return allLecturers.stream()
+                .filter(l -> matchRank(l, course) != NO_MATCH)
+                .sorted(Comparator.comparingInt(l -> matchRank(l, course)))
+                .collect(Collectors.toList());
+    }
+
+    // Ứng viên cho các lớp chưa có giảng viên (theo id lớp), dùng khi bộ xếp lịch phân công cùng lúc xếp lịch.
+    // Giống greedy: chỉ giữ các ứng viên ở mức phù hợp cao nhất, việc chọn ai (cân bằng tải, không trùng lịch)
+    // để bộ xếp lịch quyết định. Lớp không có ứng viên nào thì không có trong kết quả.
+    @Transactional(readOnly = true)
+    public Map<Long, List<Lecturer>> findLecturerCandidates(List<CourseOffering> offerings) {
+        List<Lecturer> allLecturers = lecturerRepo.findAll();
+        Map<Long, List<Lecturer>> result = new HashMap<>();
+        for (CourseOffering offering : offerings) {
+            if (offering.getLecturer() != null) continue;
+            Course course = offering.getCourse();
+            List<Lecturer> candidates = findCandidates(course, allLecturers);
+            if (candidates.isEmpty()) continue;
+            int bestRank = matchRank(candidates.get(0), course);
+            result.put(offering.getId(), candidates.stream()
+                    .filter(l -> matchRank(l, course) == bestRank)
+                    .collect(Collectors.toList()));
+        }
+        return result;
+    }
+
+    // Mức phù hợp (nhỏ hơn là tốt hơn): mỗi bit là 1 tiêu chí KHÔNG khớp, bit cao = tiêu chí ưu tiên hơn
+    private int matchRank(Lecturer lecturer, Course course) {
+        if (lecturer == null || lecturer.getFaculty() == null) return NO_MATCH;
+        Long managingFacultyId = (course != null && course.getManagingFaculty() != null)
+                ? course.getManagingFaculty().getId()
+                : null;
+        School managingSchool = resolveManagingSchool(course);
+
+        boolean expertiseMatch = canTeachCourse(lecturer, course);
+        boolean facultyMatch = managingFacultyId != null && managingFacultyId.equals(lecturer.getFaculty().getId());
+        boolean schoolMatch = managingSchool != null
+                && lecturer.getFaculty().getSchool() != null
+                && managingSchool.getId() != null
+                && managingSchool.getId().equals(lecturer.getFaculty().getSchool().getId());
+        return (expertiseMatch ? 0 : EXPERTISE_MISS) | (facultyMatch ? 0 : FACULTY_MISS) | (schoolMatch ? 0 : SCHOOL_MISS);
+    }
+
     private boolean canTeachCourse(Lecturer lecturer, Course course) {
         if (lecturer == null || course == null) return false;
         if (course.getId() == null) {
@@ -3,15 +3,18 @@ package com.phenikaa.scheduler.service;
 import com.phenikaa.scheduler.model.Course;
 import com.phenikaa.scheduler.model.CourseOffering;
 import com.phenikaa.scheduler.model.Lecturer;
+import com.phenikaa.scheduler.model.Room;
 import com.phenikaa.scheduler.model.Semester;
 import com.phenikaa.scheduler.model.User;
 import com.phenikaa.scheduler.repository.CourseOfferingRepository;
 import com.phenikaa.scheduler.repository.CourseRepository;
 import com.phenikaa.scheduler.repository.LecturerRepository;
+import com.phenikaa.scheduler.repository.RoomRepository;
 import com.phenikaa.scheduler.repository.SemesterRepository;
 import com.phenikaa.scheduler.security.SecurityUtils;
 import com.phenikaa.scheduler.security.services.UserDetailsImpl;
 import com.phenikaa.scheduler.validator.CourseOfferingValidator;
+import com.phenikaa.scheduler.validator.TimeTableValidator;
 
 import org.apache.poi.ss.usermodel.*;
 import org.apache.poi.xssf.usermodel.XSSFWorkbook;
@@ -37,10 +40,14 @@ public class CourseOfferingService {
     private LecturerRepository lecturerRepo;
     @Autowired
     private SemesterRepository semesterRepo;
+    @Autowired
+    private RoomRepository roomRepo;
     @Autowired 
     private SecurityUtils securityUtils;
     @Autowired
     private CourseOfferingValidator offeringValidator;
+    @Autowired
+    private TimeTableValidator timeTableValidator;
 
     public List<CourseOffering> getAllOfferings() {
         UserDetailsImpl user = securityUtils.getCurrentUser();
@@ -190,6 +197,35 @@ public class CourseOfferingService {
         return offeringRepo.save(offering);
     }
 
+    // Ghim / bỏ ghim lịch của lớp: khi ghim có thể chỉ định luôn ngày, tiết bắt đầu, phòng (để trống: giữ lịch đang có)
+    @Transactional
+    public CourseOffering pinOffering(Long offeringId, boolean pinned, Integer dayOfWeek, Integer startPeriod, Long roomId) {
+        @SuppressWarnings("null")
+        CourseOffering offering = offeringRepo.findById(offeringId)
+                .orElseThrow(() -> new RuntimeException("Offering not found"));
+
+        if (pinned) {
+            if (dayOfWeek != null) offering.setDayOfWeek(dayOfWeek);
+            if (startPeriod != null) offering.setStartPeriod(startPeriod);
+            if (roomId != null) {
+                @SuppressWarnings("null")
+                Room room = roomRepo.findById(roomId)
+                        .orElseThrow(() -> new RuntimeException("Room not found"));
+                offering.setRoom(room);
+            }
+            if (offering.getDayOfWeek() == null || offering.getStartPeriod() == null || offering.getRoom() == null) {
+                throw new IllegalArgumentException("Pinned offering needs dayOfWeek, startPeriod and room");
+            }
+            // Ngoài quy chế thì bộ xếp lịch sẽ bỏ qua cờ ghim và xếp đè lên: báo lỗi ngay thay vì lưu
+            if (!timeTableValidator.isStandardSlot(offering, offering.getDayOfWeek(), offering.getStartPeriod())) {
+                throw new IllegalArgumentException("Invalid pinned slot: dayOfWeek must be 2-7 and startPeriod one of 1, 4, 7, 10, 13");
+            }
+            offering.setEndPeriod(offering.getStartPeriod() + timeTableValidator.calculateDuration(offering) - 1);
+        }
+        offering.setPinned(pinned);
+        return offeringRepo.save(offering);
+    }
+
     @SuppressWarnings("unused")
     @Transactional
     public String importCourseOfferingsExcel(MultipartFile file) {
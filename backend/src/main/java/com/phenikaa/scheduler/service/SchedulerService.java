@@ -1,7 +1,10 @@
 package com.phenikaa.scheduler.service;
 
 import com.phenikaa.scheduler.controller.util.ExcelTemplateUtil;
-import com.phenikaa.scheduler.core.GeneticAlgorithm;
+import com.phenikaa.scheduler.core.SchedulingEngine;
+import com.phenikaa.scheduler.core.SolverExecutors;
+import com.phenikaa.scheduler.core.SolverOptions;
+import com.phenikaa.scheduler.dto.SolverProgressEvent;
 import com.phenikaa.scheduler.model.CourseOffering;
 import com.phenikaa.scheduler.model.Semester;
 import com.phenikaa.scheduler.repository.CourseOfferingRepository;
@@ -11,35 +14,209 @@ import org.apache.poi.ss.usermodel.Row;
 import org.apache.poi.ss.usermodel.Sheet;
 import org.apache.poi.ss.usermodel.Workbook;
 import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import jakarta.annotation.PostConstruct;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
 import java.util.Comparator;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
 
 @Service
 public class SchedulerService {
+    private static final Logger log = LoggerFactory.getLogger(SchedulerService.class);
+
     @Autowired private SemesterRepository semesterRepo;
     @Autowired private CourseOfferingRepository offeringRepo;
     
-    @Autowired private GeneticAlgorithm geneticAlgorithm;
+    // Mọi engine xếp lịch (GA, SA, ...), chọn theo SolverOptions.algorithm
+    @Autowired private List<SchedulingEngine> engines;
+    @Autowired private SolverExecutors solverExecutors;
+
+    // Lưu các job xếp lịch theo id; job đã xong được giữ lại 1 thời gian để client còn hỏi kết quả
+    private static final Duration FINISHED_JOB_RETENTION = Duration.ofHours(1);
+    private final Map<String, SolveJob> jobs = new ConcurrentHashMap<>();
+
+    // Khoảng cách tối thiểu giữa 2 lần chụp / đẩy tiến độ cho client
+    @Value("${scheduler.solver.progress-interval-ms:500}")
+    private long progressIntervalMs;
 
-    @Transactional
+    @PostConstruct
+    void startProgressPublisher() {
+        solverExecutors.scheduleProgress(this::publishProgress, Math.max(50, progressIntervalMs));
+    }
+
+    // Xếp lịch kỳ hiện hành bằng engine có tên algorithm (để trống: GA)
     public String generateSchedule(String algorithm) {
-        return generateSchedule((Long) null);
+        SolverOptions options = new SolverOptions();
+        if (algorithm != null && !algorithm.isBlank()) options.setAlgorithm(algorithm);
+        return generateSchedule((Long) null, options);
     }
 
-    @Transactional
     public String generateSchedule(Long semesterId) {
+        return generateSchedule(semesterId, new SolverOptions());
+    }
+
+    // Chạy đồng bộ (chờ tới khi xong): vẫn đi qua hàng đợi job, không giữ transaction trong lúc chờ
+    public String generateSchedule(Long semesterId, SolverOptions options) {
+        SolveJob job;
+        try {
+            job = submit(resolveSemester(semesterId), options);
+        } catch (IllegalArgumentException e) {
+            return "Error: " + e.getMessage();
+        }
+
+        try {
+            job.getFuture().get();
+        } catch (InterruptedException e) {
+            job.requestCancel();
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for the solver", e);
+        } catch (ExecutionException | CancellationException e) {
+            // Lỗi đã được ghi vào job
+        }
+        if (job.getStatus() == SolveJob.Status.FAILED) {
+            throw new IllegalStateException(job.toStatus().getError());
+        }
+        return job.toStatus().getResult();
+    }
+
+    // --- JOB XẾP LỊCH CHẠY NỀN ---
+
+    // Đưa 1 lần xếp lịch vào hàng đợi và trả về ngay (ném RejectedExecutionException nếu hàng đợi đầy)
+    public SolveJob submitScheduleJob(Long semesterId, SolverOptions options) {
+        return submit(resolveSemester(semesterId), options);
+    }
+
+    public Optional<SolveJob> getJob(String jobId) {
+        return Optional.ofNullable(jobs.get(jobId));
+    }
+
+    // Hủy hợp tác: GA dừng ở thế hệ kế tiếp và vẫn lưu lịch tốt nhất tìm được
+    public Optional<SolveJob> cancelJob(String jobId) {
+        SolveJob job = jobs.get(jobId);
+        if (job != null) job.requestCancel();
+        return Optional.ofNullable(job);
+    }
+
+    // Đăng ký nhận tiến độ qua SSE: sự kiện "progress" theo thế hệ, sự kiện "status" khi job kết thúc
+    public Optional<SseEmitter> subscribe(String jobId) {
+        SolveJob job = jobs.get(jobId);
+        if (job == null) return Optional.empty();
+
+        SseEmitter emitter = new SseEmitter(0L); // Không timeout: đóng khi job kết thúc
+        emitter.onCompletion(() -> job.removeSubscriber(emitter));
+        emitter.onTimeout(() -> job.removeSubscriber(emitter));
+        emitter.onError(e -> job.removeSubscriber(emitter));
+        job.addSubscriber(emitter);
+
+        // Job đã xong trước khi client kịp nghe: gửi luôn trạng thái cuối
+        if (job.isFinished()) publishProgress();
+        return Optional.of(emitter);
+    }
+
+    // Chạy trên luồng đẩy tiến độ (không phải luồng GA)
+    private synchronized void publishProgress() {
+        for (SolveJob job : jobs.values()) {
+            if (job.getSubscribers().isEmpty()) continue;
+            try {
+                SolverProgressEvent progress = job.pollProgressEvent();
+                if (progress != null) send(job, SseEmitter.event().name("progress").data(progress));
+
+                if (job.isFinished()) {
+                    send(job, SseEmitter.event().name("status").data(job.toStatus()));
+                    for (SseEmitter emitter : job.getSubscribers()) emitter.complete();
+                    job.getSubscribers().clear();
+                }
+            } catch (RuntimeException e) {
+                // Không để 1 job lỗi làm dừng tác vụ định kỳ
+                log.warn("Failed to publish progress for solve job {}", job.getId(), e);
+            }
+        }
+    }
+
+    private void send(SolveJob job, SseEmitter.SseEventBuilder event) {
+        for (SseEmitter emitter : job.getSubscribers()) {
+            try {
+                emitter.send(event);
+            } catch (IOException | IllegalStateException e) {
+                // Client đã ngắt kết nối
+                job.removeSubscriber(emitter);
+            }
+        }
+    }
+
+    private SolveJob submit(Semester sem, SolverOptions options) {
+        SolverOptions jobOptions = options != null ? options : new SolverOptions();
+        SchedulingEngine engine = resolveEngine(jobOptions.getAlgorithm());
+        evictFinishedJobs();
+
+        SolveJob job = new SolveJob(sem.getId(), jobOptions, progressIntervalMs);
+        jobs.put(job.getId(), job);
+        try {
+            job.setFuture(solverExecutors.submitSolve(() -> {
+                runJob(job, engine);
+                return null;
+            }));
+        } catch (RejectedExecutionException e) {
+            jobs.remove(job.getId());
+            throw e;
+        }
+        return job;
+    }
+
+    private void runJob(SolveJob job, SchedulingEngine engine) {
+        if (job.isCancelRequested()) {
+            job.complete(null); // Hủy trước khi kịp chạy
+            return;
+        }
+        job.markRunning();
+        try {
+            // Engine tự nạp dữ liệu / lưu kết quả qua repository, mỗi bước 1 transaction ngắn
+            job.complete(engine.run(job.getSemesterId(), job.getOptions(), job));
+        } catch (RuntimeException e) {
+            log.error("Solve job {} failed", job.getId(), e);
+            job.fail(e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName());
+        }
+    }
+
+    private void evictFinishedJobs() {
+        Instant cutoff = Instant.now().minus(FINISHED_JOB_RETENTION);
+        jobs.values().removeIf(j -> j.isFinished() && j.getFinishedAt().isBefore(cutoff));
+    }
+
+    // Chọn engine theo tên (không phân biệt hoa thường), để trống thì dùng GA
+    private SchedulingEngine resolveEngine(String algorithm) {
+        String name = algorithm != null && !algorithm.isBlank() ? algorithm.trim() : "GA";
+        return engines.stream()
+                .filter(e -> e.getName().equalsIgnoreCase(name))
+                .findFirst()
+                .orElseThrow(() -> new IllegalArgumentException("Unknown scheduling algorithm: " + name + " (available: "
+                        + engines.stream().map(SchedulingEngine::getName).sorted().toList() + ")"));
+    }
+
+    // Xác định kỳ cần xếp (mặc định kỳ hiện hành)
+    private Semester resolveSemester(Long semesterId) {
         Semester sem;
         if (semesterId != null) {
             sem = semesterRepo.findById(semesterId).orElse(null);
-            if (sem == null) return "Error: Semester not found (id=" + semesterId + ")";
+            if (sem == null) throw new IllegalArgumentException("Semester not found (id=" + semesterId + ")");
         } else {
             sem = semesterRepo.findByIsCurrentTrue().orElse(null);
-            if (sem == null) return "Error: No active semester found! Please activate a semester first.";
+            if (sem == null) throw new IllegalArgumentException("No active semester found! Please activate a semester first.");
         }
 
         // Migrate legacy data: nếu semester có offerings=0 nhưng DB đang có offerings chưa gán semester
@@ -51,8 +228,7 @@ public class SchedulerService {
                 offeringRepo.saveAll(missing);
             }
         }
-
-        return geneticAlgorithm.run(sem.getId());
+        return sem;
     }
 
     public Workbook buildTimetableWorkbook(String sheetName, List<CourseOffering> offerings) {
@@ -0,0 +1,197 @@
+package com.phenikaa.scheduler.service;
+
+import com.phenikaa.scheduler.core.SolverMonitor;
+import com.phenikaa.scheduler.core.SolverOptions;
+import com.phenikaa.scheduler.core.SolverProgress;
+import com.phenikaa.scheduler.dto.SolveJobStatus;
+import com.phenikaa.scheduler.dto.SolverProgressEvent;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 1 lần xếp lịch chạy nền: giữ trạng thái, tiến độ (thế hệ, fitness tốt nhất) và cờ hủy.
+ * Luồng GA ghi, luồng HTTP đọc nên các trường trạng thái đều volatile.
+ * Tiến độ chi tiết chỉ được chụp tối đa 1 lần mỗi progressInterval; luồng đẩy tiến độ đọc ảnh chụp mới nhất
+ * và gửi cho các client đang nghe (SSE), GA không bao giờ phải chờ mạng.
+ */
+public class SolveJob implements SolverMonitor {
+
+    public enum Status {
+        QUEUED,     // Đang chờ trong hàng đợi của bộ xếp lịch
+        RUNNING,
+        COMPLETED,
+        CANCELLED,  // Bị hủy: nếu đã chạy thì vẫn lưu lịch tốt nhất tìm được
+        FAILED
+    }
+
+    private final String id = UUID.randomUUID().toString();
+    private final Long semesterId;
+    private final SolverOptions options;
+    private final Instant submittedAt = Instant.now();
+
+    private volatile Status status = Status.QUEUED;
+    private volatile Instant startedAt;
+    private volatile Instant finishedAt;
+    private volatile int generation = -1;
+    private volatile double bestFitness = Double.NEGATIVE_INFINITY;
+    private volatile String result;
+    private volatile String error;
+    private volatile boolean cancelRequested;
+    private volatile Future<?> future;
+
+    // --- TIẾN ĐỘ CHI TIẾT (SSE) ---
+    private final long progressIntervalNanos;
+    private final AtomicLong lastProgressAt;
+    private volatile SolverProgress latestProgress;
+    private volatile long progressVersion;       // Tăng mỗi lần có ảnh chụp mới
+    private long publishedVersion;               // Chỉ đọc/ghi dưới khóa của SchedulerService.publishProgress
+    private final List<SseEmitter> subscribers = new CopyOnWriteArrayList<>();
+
+    SolveJob(Long semesterId, SolverOptions options, long progressIntervalMillis) {
+        this.semesterId = semesterId;
+        this.options = options;
+        this.progressIntervalNanos = Math.max(0, progressIntervalMillis) * 1_000_000L;
+        this.lastProgressAt = new AtomicLong(System.nanoTime() - progressIntervalNanos);
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public Long getSemesterId() {
+        return semesterId;
+    }
+
+    public SolverOptions getOptions() {
+        return options;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public boolean isFinished() {
+        return status == Status.COMPLETED || status == Status.CANCELLED || status == Status.FAILED;
+    }
+
+    Instant getFinishedAt() {
+        return finishedAt;
+    }
+
+    Future<?> getFuture() {
+        return future;
+    }
+
+    void setFuture(Future<?> future) {
+        this.future = future;
+    }
+
+    // --- VÒNG ĐỜI (do SchedulerService gọi) ---
+    void markRunning() {
+        startedAt = Instant.now();
+        status = Status.RUNNING;
+    }
+
+    void complete(String result) {
+        this.result = result;
+        finish(cancelRequested ? Status.CANCELLED : Status.COMPLETED);
+    }
+
+    void fail(String error) {
+        this.error = error;
+        finish(Status.FAILED);
+    }
+
+    // Hủy: job còn trong hàng đợi thì bỏ luôn, đang chạy thì GA tự dừng ở thế hệ kế tiếp
+    void requestCancel() {
+        cancelRequested = true;
+        Future<?> f = future;
+        if (status == Status.QUEUED && f != null && f.cancel(false)) {
+            finish(Status.CANCELLED);
+        }
+    }
+
+    private void finish(Status finalStatus) {
+        finishedAt = Instant.now();
+        status = finalStatus;
+    }
+
+    // --- SolverMonitor (do luồng GA gọi) ---
+    @Override
+    public boolean isCancelRequested() {
+        return cancelRequested;
+    }
+
+    @Override
+    public synchronized void onGeneration(int generation, double bestFitness) {
+        // Mô hình đảo: nhiều đảo cùng báo, giữ thế hệ lớn nhất và fitness tốt nhất trên mọi đảo
+        if (generation > this.generation) this.generation = generation;
+        if (bestFitness > this.bestFitness) this.bestFitness = bestFitness;
+    }
+
+    @Override
+    public boolean isProgressDue() {
+        // Mỗi khoảng thời gian chỉ 1 luồng (1 đảo) giành được quyền chụp tiến độ
+        long now = System.nanoTime();
+        long last = lastProgressAt.get();
+        return now - last >= progressIntervalNanos && lastProgressAt.compareAndSet(last, now);
+    }
+
+    @Override
+    public void onProgress(SolverProgress progress) {
+        latestProgress = progress;
+        progressVersion++;
+    }
+
+    // --- NGƯỜI NGHE SSE (do SchedulerService gọi) ---
+    void addSubscriber(SseEmitter emitter) {
+        subscribers.add(emitter);
+    }
+
+    void removeSubscriber(SseEmitter emitter) {
+        subscribers.remove(emitter);
+    }
+
+    List<SseEmitter> getSubscribers() {
+        return subscribers;
+    }
+
+    // Ảnh chụp tiến độ chưa gửi (null nếu không có gì mới); chỉ gọi từ SchedulerService.publishProgress
+    SolverProgressEvent pollProgressEvent() {
+        long version = progressVersion;
+        SolverProgress p = latestProgress;
+        if (p == null || version == publishedVersion) return null;
+        publishedVersion = version;
+        return new SolverProgressEvent(id, p.generation(), p.bestFitness(), p.averageFitness(),
+                p.hardViolations(), elapsedMillis());
+    }
+
+    private long elapsedMillis() {
+        if (startedAt == null) return 0;
+        Instant end = finishedAt != null ? finishedAt : Instant.now();
+        return end.toEpochMilli() - startedAt.toEpochMilli();
+    }
+
+    public SolveJobStatus toStatus() {
+        Long elapsedMs = startedAt != null ? elapsedMillis() : null;
+        return new SolveJobStatus(
+                id,
+                semesterId,
+                status.name(),
+                generation >= 0 ? generation : null,
+                generation >= 0 ? bestFitness : null,
+                submittedAt,
+                startedAt,
+                finishedAt,
+                elapsedMs,
+                result,
+                error
+        );
+    }
+}
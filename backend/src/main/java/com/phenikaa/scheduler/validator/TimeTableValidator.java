@@ -17,6 +17,12 @@ public class TimeTableValidator {
             Room room, 
             List<CourseOffering> scheduledList
     ) {
+        // Lớp được ghim chỉ hợp lệ đúng tại ngày / tiết / phòng đã ghim (lớp ghim khác trong scheduledList
+        // là phần chiếm chỗ cố định, xét như mọi lớp đã xếp ở bước 4)
+        if (isPinnedElsewhere(offering, day, startPeriod, room)) {
+            return false;
+        }
+
         // Quy chế: chỉ học Thứ 2 - Thứ 7 (GeneticAlgorithm dùng mapping 2-8)
         if (day < 2 || day > 7) {
             return false;
@@ -140,12 +146,30 @@ public class TimeTableValidator {
             || Boolean.TRUE.equals(offering.getCourse().getIsOnline());
         }
 
+    // Lớp đang ghim (đủ ngày, tiết, phòng) nhưng vị trí đang xét khác vị trí đã ghim
+    private boolean isPinnedElsewhere(CourseOffering offering, int day, int startPeriod, Room room) {
+        if (!Boolean.TRUE.equals(offering.getPinned())) return false;
+        if (offering.getDayOfWeek() == null || offering.getStartPeriod() == null || offering.getRoom() == null) return false;
+        return offering.getDayOfWeek() != day
+                || offering.getStartPeriod() != startPeriod
+                || !offering.getRoom().getId().equals(room.getId());
+    }
+
     // Helper tính thời lượng
-    private int calculateDuration(CourseOffering offering) {
+    public int calculateDuration(CourseOffering offering) {
         // Quy chế kíp học: mọi lớp đều học theo 1 kíp = 3 tiết
         return 3;
     }
 
+    // Ngày / kíp bắt đầu đúng quy chế: Thứ 2 - Thứ 7, kíp 1, 4, 7, 10, 13 và buổi học kết thúc trước tiết 15
+    public boolean isStandardSlot(CourseOffering offering, int day, int startPeriod) {
+        if (day < 2 || day > 7) return false;
+        if (startPeriod != 1 && startPeriod != 4 && startPeriod != 7 && startPeriod != 10 && startPeriod != 13) {
+            return false;
+        }
+        return startPeriod + calculateDuration(offering) - 1 <= 15;
+    }
+
     private boolean hasCommonClass(String target1, String target2) {
         if (target1 == null || target2 == null) return false;
         // Tối ưu: Dùng contains nhanh trước khi split
@@ -168,6 +192,11 @@ public class TimeTableValidator {
             Room room, 
             List<CourseOffering> scheduledList
     ) {
+        if (isPinnedElsewhere(offering, day, startPeriod, room)) {
+            return "Pinned at day " + offering.getDayOfWeek() + ", period " + offering.getStartPeriod()
+                    + ", room " + offering.getRoom().getName();
+        }
+
         int duration = calculateDuration(offering);
         int endPeriod = startPeriod + duration - 1;
 
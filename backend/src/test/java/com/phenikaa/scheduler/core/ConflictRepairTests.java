@@ -0,0 +1,102 @@
+package com.phenikaa.scheduler.core;
+
+import com.phenikaa.scheduler.model.Course;
+import com.phenikaa.scheduler.model.CourseOffering;
+import com.phenikaa.scheduler.model.Lecturer;
+import com.phenikaa.scheduler.model.Room;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ConflictRepairTests {
+
+	@Test
+	void clearsResidualConflictsAndKeepsScoreExact() {
+		CompiledProblem problem = problem(new Random(2), 120, 24);
+		FitnessEvaluator evaluator = new FitnessEvaluator(problem);
+
+		for (int i = 0; i < 10; i++) {
+			SplittableRandom rnd = new SplittableRandom(i);
+			Schedule sch = new Schedule(problem);
+			new DSaturInitializer(problem).build(sch, rnd);
+
+			// Dồn vài lớp vào đúng (ngày, kíp, phòng) của lớp khác
+			for (int k = 0; k < 4; k++) {
+				int g = rnd.nextInt(problem.size), h = rnd.nextInt(problem.size);
+				sch.setGene(g, sch.day[h], sch.startPeriod[h], sch.roomIdx[h]);
+			}
+			evaluator.evaluate(sch);
+			double before = sch.fitness;
+
+			ConflictRepair.Outcome outcome = new ConflictRepair(problem, evaluator, 40, 200_000).repair(sch);
+			assertTrue(outcome.conflictsBefore() > 0);
+			assertTrue(outcome.solved(), outcome.toString());
+			assertTrue(sch.fitness >= before);
+			assertTrue(evaluator.countHardViolations(sch).values().stream().allMatch(c -> c == 0), "iteration " + i);
+
+			Schedule fresh = new Schedule(problem);
+			fresh.copyFrom(sch);
+			evaluator.evaluate(fresh);
+			assertEquals(fresh.fitness, sch.fitness, "iteration " + i);
+		}
+	}
+
+	@Test
+	void leavesScheduleUntouchedWhenNoRepairExists() {
+		// 1 giảng viên dạy 31 buổi: cả tuần chỉ có 24 kíp ngày + 6 kíp tối nên không thể hết trùng
+		CompiledProblem problem = problem(new Random(4), 31, 1);
+		FitnessEvaluator evaluator = new FitnessEvaluator(problem);
+		Schedule sch = new Schedule(problem);
+		new DSaturInitializer(problem).build(sch, new SplittableRandom(1));
+		evaluator.evaluate(sch);
+		int[] day = sch.day.clone();
+		int[] start = sch.startPeriod.clone();
+		double before = sch.fitness;
+
+		ConflictRepair.Outcome outcome = new ConflictRepair(problem, evaluator, 40, 200_000).repair(sch);
+		assertFalse(outcome.solved());
+		assertArrayEquals(day, sch.day);
+		assertArrayEquals(start, sch.startPeriod);
+		assertEquals(before, sch.fitness);
+	}
+
+	private static CompiledProblem problem(Random rnd, int offeringCount, int lecturerCount) {
+		List<Room> rooms = new ArrayList<>();
+		for (int i = 0; i < 8; i++) rooms.add(new Room((long) i + 1, "R" + i, 60, i < 6 ? "THEORY" : "LAB"));
+		rooms.add(new Room(9L, "ONLINE", null, "ONLINE"));
+
+		List<Lecturer> lecturers = new ArrayList<>();
+		for (int i = 0; i < lecturerCount; i++) {
+			Lecturer l = new Lecturer();
+			l.setId((long) i + 1);
+			lecturers.add(l);
+		}
+
+		List<CourseOffering> offerings = new ArrayList<>();
+		for (int i = 0; i < offeringCount; i++) {
+			CourseOffering off = new CourseOffering();
+			off.setId((long) i + 1);
+			off.setCode("C" + i);
+			Course course = new Course();
+			course.setName(rnd.nextInt(10) == 0 ? "Coursera Data Science" : "Course " + i);
+			off.setCourse(course);
+			off.setClassType(rnd.nextInt(4) == 0 ? "TH" : "LT");
+			off.setPlannedSize(20 + rnd.nextInt(40));
+			off.setTargetClasses("K17-" + rnd.nextInt(12));
+			off.setLecturer(lecturers.get(rnd.nextInt(lecturers.size())));
+			if ("TH".equals(off.getClassType()) && i > 0 && rnd.nextBoolean()) {
+				off.setParent(offerings.get(rnd.nextInt(i)));
+			}
+			offerings.add(off);
+		}
+		return CompiledProblem.compile(offerings, rooms);
+	}
+}
@@ -0,0 +1,40 @@
+package com.phenikaa.scheduler.core;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class DSaturInitializerTests {
+
+	@Test
+	void buildsValidSchedulesFarBetterThanRandom() {
+		Random rnd = new Random(2);
+		CompiledProblem problem = FitnessEvaluatorTests.randomProblem(rnd, 200, 25);
+		FitnessEvaluator evaluator = new FitnessEvaluator(problem);
+		DSaturInitializer initializer = new DSaturInitializer(problem);
+
+		for (int i = 0; i < 10; i++) {
+			Schedule constructed = new Schedule(problem);
+			initializer.build(constructed, new SplittableRandom(i));
+			evaluator.evaluate(constructed);
+
+			for (int g = 0; g < problem.size; g++) {
+				OfferingDescriptor d = problem.descriptors[g];
+				int[] starts = d.online ? AbstractSchedulingEngine.ONLINE_SLOTS : AbstractSchedulingEngine.OFFLINE_SLOTS;
+				int start = constructed.startPeriod[g];
+				int room = constructed.roomIdx[g];
+				assertTrue(constructed.day[g] >= 2 && constructed.day[g] <= 7);
+				assertTrue(Arrays.stream(starts).anyMatch(s -> s == start));
+				assertTrue(Arrays.stream(d.roomCandidates).anyMatch(r -> r == room));
+			}
+
+			Schedule random = FitnessEvaluatorTests.randomSchedule(problem, rnd, 6);
+			evaluator.evaluate(random);
+			assertTrue(constructed.fitness > random.fitness, constructed.fitness + " <= " + random.fitness);
+		}
+	}
+}
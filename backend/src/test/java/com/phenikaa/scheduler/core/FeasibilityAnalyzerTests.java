@@ -0,0 +1,95 @@
+package com.phenikaa.scheduler.core;
+
+import com.phenikaa.scheduler.model.Course;
+import com.phenikaa.scheduler.model.CourseOffering;
+import com.phenikaa.scheduler.model.Lecturer;
+import com.phenikaa.scheduler.model.Room;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class FeasibilityAnalyzerTests {
+
+	private static final List<Room> ROOMS = List.of(
+			new Room(1L, "PC1", 40, "PC"),
+			new Room(2L, "PC2", 40, "PC"),
+			new Room(3L, "A101", 60, "THEORY"),
+			new Room(4L, "ONLINE", null, "ONLINE"));
+
+	@Test
+	void boundsRoomPoolsBySlotsPerWeek() {
+		// 2 phòng PC x 24 kíp offline = 48 buổi
+		List<CourseOffering> offerings = new ArrayList<>();
+		for (int i = 0; i < 48; i++) offerings.add(offering(i, "PC", 30, (long) i % 10, "K17-" + i % 10));
+		assertTrue(analyze(offerings, List.of()).feasible());
+
+		offerings.add(offering(48, "PC", 30, 9L, "K17-9"));
+		FeasibilityAnalyzer.Report report = analyze(offerings, List.of());
+		assertEquals(List.of("ROOM_POOL"), kinds(report));
+		assertTrue(report.toString().contains("49 offline offering(s) need PC rooms (2)"), report.toString());
+	}
+
+	@Test
+	void boundsLecturerAndClassSessionsIncludingPinnedOccupancy() {
+		// 24 buổi offline của cùng 1 giảng viên vừa đủ; lớp ghim chiếm 1 kíp của giảng viên đó thì không còn đủ
+		List<CourseOffering> offerings = new ArrayList<>();
+		for (int i = 0; i < 24; i++) offerings.add(offering(i, null, 30, 1L, "K17-" + i));
+		assertTrue(analyze(offerings, List.of()).feasible());
+
+		CourseOffering pinned = offering(100, null, 30, 1L, "K18-A");
+		pinned.setPinned(true);
+		pinned.setDayOfWeek(3);
+		pinned.setStartPeriod(4);
+		pinned.setRoom(ROOMS.get(0)); // Không chiếm phòng A101 của các lớp kia
+		assertEquals(List.of("LECTURER"), kinds(analyze(offerings, List.of(pinned))));
+
+		// Lớp biên chế học online: chỉ có 6 kíp tối / tuần
+		List<CourseOffering> online = new ArrayList<>();
+		for (int i = 0; i < 7; i++) online.add(offering(i, null, 30, (long) i, "K17-A"));
+		online.forEach(o -> o.setClassType("ELN"));
+		FeasibilityAnalyzer.Report report = analyze(online, List.of());
+		assertEquals(List.of("CLASS"), kinds(report));
+		assertTrue(report.toString().contains("Class K17-A has 7 online sessions but only 6 free evening slots"),
+				report.toString());
+	}
+
+	@Test
+	void reportsOfferingsThatFitNoRoom() {
+		List<CourseOffering> offerings = List.of(
+				offering(1, "PC", 90, 1L, "K17-A"),   // Phòng PC lớn nhất 40 chỗ
+				offering(2, "HALL", 30, 2L, "K17-B")); // Không có hội trường
+		FeasibilityAnalyzer.Report report = analyze(offerings, List.of());
+		assertEquals(List.of("ROOM_TYPE", "CAPACITY"), kinds(report));
+		assertTrue(report.toString().contains("[C2]"), report.toString());
+	}
+
+	private static FeasibilityAnalyzer.Report analyze(List<CourseOffering> offerings, List<CourseOffering> pinned) {
+		return new FeasibilityAnalyzer(CompiledProblem.compile(offerings, ROOMS, Map.of(), pinned)).analyze();
+	}
+
+	private static List<String> kinds(FeasibilityAnalyzer.Report report) {
+		return report.violations().stream().map(FeasibilityAnalyzer.Violation::kind).distinct().toList();
+	}
+
+	private static CourseOffering offering(long id, String roomType, int size, long lecturerId, String targetClasses) {
+		CourseOffering off = new CourseOffering();
+		off.setId(id);
+		off.setCode("C" + id);
+		Course course = new Course();
+		course.setName("Course " + id);
+		off.setCourse(course);
+		off.setClassType("LT");
+		off.setRequiredRoomType(roomType);
+		off.setPlannedSize(size);
+		off.setTargetClasses(targetClasses);
+		Lecturer lecturer = new Lecturer();
+		lecturer.setId(lecturerId);
+		off.setLecturer(lecturer);
+		return off;
+	}
+}
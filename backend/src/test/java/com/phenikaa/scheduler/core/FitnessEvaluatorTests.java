@@ -0,0 +1,333 @@
+package com.phenikaa.scheduler.core;
+
+import com.phenikaa.scheduler.model.Course;
+import com.phenikaa.scheduler.model.CourseOffering;
+import com.phenikaa.scheduler.model.Lecturer;
+import com.phenikaa.scheduler.model.Room;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class FitnessEvaluatorTests {
+
+	private static final int[] STARTS = {1, 4, 7, 10, 13};
+
+	@Test
+	void fullEvaluationMatchesLegacyStringKeyedScoring() {
+		Random rnd = new Random(1);
+		CompiledProblem problem = randomProblem(rnd, 120, 15);
+		FitnessEvaluator evaluator = new FitnessEvaluator(problem);
+
+		for (int i = 0; i < 200; i++) {
+			Schedule sch = randomSchedule(problem, rnd, i % 2 == 0 ? 2 : 6);
+			evaluator.evaluate(sch);
+			assertEquals(legacyScore(sch, problem), sch.fitness, "iteration " + i);
+		}
+	}
+
+	@Test
+	void incrementalEvaluationMatchesFullRecompute() {
+		Random rnd = new Random(7);
+		CompiledProblem problem = randomProblem(rnd, 200, 12);
+		FitnessEvaluator evaluator = new FitnessEvaluator(problem);
+
+		List<Schedule> pool = new ArrayList<>();
+		for (int i = 0; i < 6; i++) {
+			Schedule sch = randomSchedule(problem, rnd, 3);
+			evaluator.evaluate(sch);
+			pool.add(sch);
+		}
+
+		Schedule fresh = new Schedule(problem);
+		for (int i = 0; i < 300; i++) {
+			Schedule p1 = pool.get(rnd.nextInt(pool.size()));
+			Schedule p2 = pool.get(rnd.nextInt(pool.size()));
+			Schedule child = new Schedule(problem);
+			for (int g = 0; g < problem.size; g++) {
+				child.copyGene(g, rnd.nextBoolean() ? p1 : p2);
+				if (rnd.nextDouble() < 0.05) randomGene(child, g, problem, rnd, 3);
+			}
+			child.basis = p1;
+			evaluator.ensureEvaluated(child);
+
+			fresh.copyFrom(child);
+			evaluator.evaluate(fresh);
+			assertEquals(fresh.fitness, child.fitness, "iteration " + i);
+
+			// Cá thể con tiếp tục làm basis: bảng chiếm chỗ tăng dần phải khớp với bảng dựng lại
+			pool.set(rnd.nextInt(pool.size()), child);
+		}
+	}
+
+	@Test
+	void moveGeneMatchesFullRecompute() {
+		Random rnd = new Random(5);
+		CompiledProblem problem = randomProblem(rnd, 150, 10);
+		FitnessEvaluator evaluator = new FitnessEvaluator(problem);
+		Schedule sch = randomSchedule(problem, rnd, 6);
+		evaluator.evaluate(sch);
+
+		Schedule fresh = new Schedule(problem);
+		for (int i = 0; i < 500; i++) {
+			int g = rnd.nextInt(problem.size);
+			double before = sch.fitness;
+			double delta = evaluator.moveGene(sch, g, 2 + rnd.nextInt(6), STARTS[rnd.nextInt(STARTS.length)],
+					rnd.nextInt(problem.rooms.length));
+			assertEquals(before + delta, sch.fitness);
+
+			fresh.copyFrom(sch);
+			evaluator.evaluate(fresh);
+			assertEquals(fresh.fitness, sch.fitness, "iteration " + i);
+		}
+	}
+
+	@Test
+	void localSearchNeverWorsensAndKeepsScoreExact() {
+		Random rnd = new Random(9);
+		CompiledProblem problem = randomProblem(rnd, 150, 10);
+		FitnessEvaluator evaluator = new FitnessEvaluator(problem);
+		LocalSearch localSearch = new LocalSearch(problem, evaluator, 40);
+
+		for (int i = 0; i < 20; i++) {
+			Schedule sch = randomSchedule(problem, rnd, 6);
+			evaluator.evaluate(sch);
+			double before = sch.fitness;
+
+			localSearch.improve(sch, new SplittableRandom(i));
+
+			Schedule fresh = new Schedule(problem);
+			fresh.copyFrom(sch);
+			evaluator.evaluate(fresh);
+			assertEquals(fresh.fitness, sch.fitness, "iteration " + i);
+			assertTrue(sch.fitness >= before, "iteration " + i);
+		}
+	}
+
+	@Test
+	void lecturerChoicesKeepScoreExact() {
+		Random rnd = new Random(13);
+		CompiledProblem base = randomProblem(rnd, 150, 10);
+		List<Lecturer> lecturers = base.offerings.stream()
+				.map(CourseOffering::getLecturer)
+				.filter(l -> l != null)
+				.distinct()
+				.toList();
+		Map<Long, List<Lecturer>> candidates = new HashMap<>();
+		for (CourseOffering off : base.offerings) {
+			if (off.getLecturer() == null) {
+				candidates.put(off.getId(), List.of(lecturers.get(rnd.nextInt(lecturers.size())),
+						lecturers.get(rnd.nextInt(lecturers.size()))));
+			}
+		}
+		CompiledProblem problem = CompiledProblem.compile(base.offerings, List.of(base.rooms), candidates, List.of());
+		assertTrue(problem.lecturerLoadCap != null);
+		FitnessEvaluator evaluator = new FitnessEvaluator(problem);
+		Schedule sch = randomSchedule(problem, rnd, 6);
+		evaluator.evaluate(sch);
+
+		// Dời gen kèm đổi giảng viên (trong ứng viên) phải khớp với chấm lại toàn bộ
+		Schedule fresh = new Schedule(problem);
+		for (int i = 0; i < 500; i++) {
+			int g = rnd.nextInt(problem.size);
+			int[] choices = problem.descriptors[g].lecturerCandidates;
+			int lecturer = choices.length > 0 ? choices[rnd.nextInt(choices.length)] : sch.lecturer[g];
+			evaluator.moveGene(sch, g, 2 + rnd.nextInt(6), STARTS[rnd.nextInt(STARTS.length)],
+					rnd.nextInt(problem.rooms.length), lecturer);
+
+			fresh.copyFrom(sch);
+			evaluator.evaluate(fresh);
+			assertEquals(fresh.fitness, sch.fitness, "iteration " + i);
+		}
+
+		// Tìm kiếm cục bộ (có nước đổi giảng viên) không làm xấu đi và giữ điểm chính xác
+		double before = sch.fitness;
+		new LocalSearch(problem, evaluator, 150).improve(sch, new SplittableRandom(1));
+		fresh.copyFrom(sch);
+		evaluator.evaluate(fresh);
+		assertEquals(fresh.fitness, sch.fitness);
+		assertTrue(sch.fitness >= before);
+	}
+
+	@Test
+	void pinnedOfferingsScoreLikeFixedGenes() {
+		Random rnd = new Random(17);
+		CompiledProblem full = randomProblem(rnd, 150, 10);
+		List<CourseOffering> movable = new ArrayList<>();
+		List<CourseOffering> pinned = new ArrayList<>();
+		for (CourseOffering off : full.offerings) {
+			if (rnd.nextInt(4) == 0) {
+				off.setPinned(true);
+				off.setDayOfWeek(2 + rnd.nextInt(6));
+				off.setStartPeriod(STARTS[rnd.nextInt(STARTS.length)]);
+				off.setRoom(full.rooms[rnd.nextInt(full.rooms.length)]);
+				pinned.add(off);
+			} else {
+				movable.add(off);
+			}
+		}
+		List<Room> rooms = List.of(full.rooms);
+		CompiledProblem problem = CompiledProblem.compile(movable, rooms, Map.of(), pinned);
+		CompiledProblem pinnedOnly = CompiledProblem.compile(pinned, rooms);
+		FitnessEvaluator evaluator = new FitnessEvaluator(problem);
+		Schedule pinnedSchedule = new Schedule(pinnedOnly);
+		for (int k = 0; k < pinned.size(); k++) pinnedSchedule.setGene(k, pinned.get(k).getDayOfWeek(),
+				pinned.get(k).getStartPeriod(), List.of(full.rooms).indexOf(pinned.get(k).getRoom()));
+		new FitnessEvaluator(pinnedOnly).evaluate(pinnedSchedule);
+
+		// Điểm của bài toàn phần (lớp ghim nằm cố định) = điểm phần được xếp + điểm riêng của các lớp ghim
+		Schedule sch = randomSchedule(problem, rnd, 6);
+		evaluator.evaluate(sch);
+		Schedule fresh = new Schedule(problem);
+		for (int i = 0; i < 300; i++) {
+			evaluator.moveGene(sch, rnd.nextInt(problem.size), 2 + rnd.nextInt(6), STARTS[rnd.nextInt(STARTS.length)],
+					rnd.nextInt(problem.rooms.length));
+			fresh.copyFrom(sch);
+			evaluator.evaluate(fresh);
+			assertEquals(fresh.fitness, sch.fitness, "iteration " + i);
+
+			Schedule whole = new Schedule(full);
+			for (int g = 0; g < full.size; g++) {
+				CourseOffering off = full.offerings.get(g);
+				int m = movable.indexOf(off);
+				if (m >= 0) whole.setGene(g, sch.day[m], sch.startPeriod[m], sch.roomIdx[m]);
+				else whole.setGene(g, off.getDayOfWeek(), off.getStartPeriod(), List.of(full.rooms).indexOf(off.getRoom()));
+			}
+			new FitnessEvaluator(full).evaluate(whole);
+			assertEquals(whole.fitness, sch.fitness + pinnedSchedule.fitness, 1e-6, "iteration " + i);
+		}
+	}
+
+	@Test
+	void hardViolationCountsAddUpToFitness() {
+		Random rnd = new Random(11);
+		CompiledProblem problem = randomProblem(rnd, 150, 10);
+		FitnessEvaluator evaluator = new FitnessEvaluator(problem);
+		Map<String, Double> weights = Map.of(
+				"SUNDAY", FitnessEvaluator.SUNDAY_PENALTY,
+				"ROOM_TYPE", FitnessEvaluator.ROOM_TYPE_PENALTY,
+				"CAPACITY", FitnessEvaluator.CAPACITY_PENALTY,
+				"ONLINE_SLOT", FitnessEvaluator.ONLINE_SLOT_PENALTY,
+				"ROOM_CLASH", FitnessEvaluator.ROOM_CLASH_PENALTY,
+				"LECTURER_CLASH", FitnessEvaluator.LECTURER_CLASH_PENALTY,
+				"CLASS_CLASH", FitnessEvaluator.CLASS_CLASH_PENALTY,
+				"PARENT_CLASH", FitnessEvaluator.PARENT_CLASH_PENALTY);
+
+		for (int i = 0; i < 50; i++) {
+			Schedule sch = randomSchedule(problem, rnd, 7);
+			evaluator.evaluate(sch);
+
+			double penalty = 0;
+			for (Map.Entry<String, Integer> e : evaluator.countHardViolations(sch).entrySet()) {
+				penalty += weights.get(e.getKey()) * e.getValue();
+			}
+			// Phạt học tối là ràng buộc mềm, không nằm trong số vi phạm cứng
+			for (int g = 0; g < problem.size; g++) {
+				if (!problem.descriptors[g].online && sch.startPeriod[g] == 13) penalty += FitnessEvaluator.EVENING_PENALTY;
+			}
+			assertEquals(-sch.fitness, penalty, "iteration " + i);
+		}
+	}
+
+	static CompiledProblem randomProblem(Random rnd, int offeringCount, int roomCount) {
+		String[] roomTypes = {"THEORY", "HALL", "LAB", "PC", "ONLINE", " theory"};
+		List<Room> rooms = new ArrayList<>();
+		for (int i = 0; i < roomCount; i++) {
+			Integer capacity = rnd.nextInt(4) == 0 ? null : 20 + rnd.nextInt(80);
+			rooms.add(new Room((long) i + 1, "R" + i, capacity, roomTypes[rnd.nextInt(roomTypes.length)]));
+		}
+
+		List<Lecturer> lecturers = new ArrayList<>();
+		for (int i = 0; i < 8; i++) {
+			Lecturer l = new Lecturer();
+			l.setId((long) i + 1);
+			lecturers.add(l);
+		}
+
+		String[] targets = {"K17-A", "K17-B", " K17-C", "K17-A;K17-B", "K17-A; K17-C", "", "K17-B;;K17-A", "K17-A;K17-A"};
+		String[] classTypes = {"LT", "TH", "ELN", "ALL", null};
+		List<CourseOffering> offerings = new ArrayList<>();
+		for (int i = 0; i < offeringCount; i++) {
+			CourseOffering off = new CourseOffering();
+			off.setId((long) i + 100);
+			Course course = new Course();
+			course.setName(rnd.nextInt(10) == 0 ? "Coursera Data Science" : "Giải tích");
+			off.setCourse(course);
+			off.setClassType(classTypes[rnd.nextInt(classTypes.length)]);
+			if (rnd.nextInt(5) == 0) off.setRequiredRoomType(rnd.nextBoolean() ? "pc " : "HALL");
+			off.setPlannedSize(rnd.nextInt(4) == 0 ? null : rnd.nextInt(100));
+			off.setTargetClasses(rnd.nextInt(6) == 0 ? null : targets[rnd.nextInt(targets.length)]);
+			if (rnd.nextInt(4) != 0) off.setLecturer(lecturers.get(rnd.nextInt(lecturers.size())));
+			if (i > 0 && rnd.nextInt(3) == 0) off.setParent(offerings.get(rnd.nextInt(i)));
+			offerings.add(off);
+		}
+		return CompiledProblem.compile(offerings, rooms);
+	}
+
+	static Schedule randomSchedule(CompiledProblem problem, Random rnd, int days) {
+		Schedule sch = new Schedule(problem);
+		for (int g = 0; g < problem.size; g++) randomGene(sch, g, problem, rnd, days);
+		return sch;
+	}
+
+	private static void randomGene(Schedule sch, int g, CompiledProblem problem, Random rnd, int days) {
+		sch.setGene(g, 2 + rnd.nextInt(days), STARTS[rnd.nextInt(STARTS.length)], rnd.nextInt(problem.rooms.length));
+	}
+
+	// Cách chấm điểm cũ (HashMap với key "Day-Period-X") làm chuẩn đối chiếu
+	private static double legacyScore(Schedule sch, CompiledProblem problem) {
+		double score = 0;
+		Map<String, Long> roomMap = new HashMap<>();
+		Map<String, Long> lecMap = new HashMap<>();
+		Map<String, Long> classMap = new HashMap<>();
+
+		for (int g = 0; g < problem.size; g++) {
+			CourseOffering off = problem.offerings.get(g);
+			int day = sch.day[g];
+			int startPeriod = sch.startPeriod[g];
+			Room room = problem.rooms[sch.roomIdx[g]];
+
+			if (day == 8) score -= 5000;
+			int plannedSize = off.getPlannedSize() != null ? off.getPlannedSize() : 0;
+			if (!CompiledProblem.getAllowedRoomTypes(off).contains(CompiledProblem.normalizeRoomType(room.getType()))) score -= 1000;
+			if (room.getCapacity() != null && room.getCapacity() < plannedSize) score -= 500;
+			boolean isOnline = CompiledProblem.isOnlineCourse(off);
+			if (isOnline && startPeriod != 13) score -= 1000;
+			if (!isOnline && startPeriod == 13) score -= 100;
+
+			for (int t = 0; t < 3; t++) {
+				int period = startPeriod + t;
+				if (!"ONLINE".equalsIgnoreCase(room.getType())) {
+					String key = day + "-" + period + "-" + room.getId();
+					if (roomMap.containsKey(key)) score -= 1000;
+					else roomMap.put(key, off.getId());
+				}
+				if (off.getLecturer() != null) {
+					String key = day + "-" + period + "-" + off.getLecturer().getId();
+					if (lecMap.containsKey(key)) score -= 1000;
+					else lecMap.put(key, off.getId());
+				}
+				if (off.getTargetClasses() != null) {
+					for (String cls : off.getTargetClasses().split(";")) {
+						String key = day + "-" + period + "-" + cls.trim();
+						if (classMap.containsKey(key)) score -= 200;
+						else classMap.put(key, off.getId());
+					}
+				}
+			}
+
+			int p = problem.descriptors[g].parent;
+			if (p >= 0 && sch.day[p] == day && startPeriod <= sch.startPeriod[p] + 2 && startPeriod + 2 >= sch.startPeriod[p]) {
+				score -= 2000;
+			}
+		}
+		return score;
+	}
+}
@@ -0,0 +1,346 @@
+package com.phenikaa.scheduler.core;
+
+import com.phenikaa.scheduler.model.Course;
+import com.phenikaa.scheduler.model.CourseOffering;
+import com.phenikaa.scheduler.model.Lecturer;
+import com.phenikaa.scheduler.model.Room;
+import com.phenikaa.scheduler.repository.CourseOfferingRepository;
+import com.phenikaa.scheduler.repository.RoomRepository;
+import com.phenikaa.scheduler.service.AutoAssignService;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.SplittableRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class GeneticAlgorithmTests {
+
+	@Test
+	void sameSeedGivesSameTimetable() {
+		SolverOptions options = new SolverOptions();
+		options.setSeed(42L);
+
+		// Kết quả không phụ thuộc số luồng của pool tính toán
+		assertEquals(solve(options, 1), solve(options, 4));
+	}
+
+	@Test
+	void sameSeedGivesSameTimetableInIslandMode() {
+		SolverOptions options = new SolverOptions();
+		options.setSeed(42L);
+		options.setIslandModel(true);
+		options.setIslands(3);
+		options.setMigrationInterval(5);
+
+		assertEquals(solve(options, 1), solve(options, 4));
+	}
+
+	@Test
+	void sameSeedGivesSameTimetableWithGuidedOperators() {
+		SolverOptions options = new SolverOptions();
+		options.setSeed(42L);
+		options.setMaxGenerations(30);
+		options.setLocalSearch(SolverOptions.LocalSearchMode.ALL_CHILDREN);
+		options.setMutation(SolverOptions.MutationMode.CONFLICT_GUIDED);
+
+		assertEquals(solve(options, 1), solve(options, 4));
+	}
+
+	@Test
+	void sameSeedGivesSameTimetableWhenDecomposed() {
+		SolverOptions options = new SolverOptions();
+		options.setSeed(42L);
+		options.setMaxGenerations(30);
+		options.setDecompose(true);
+
+		assertEquals(solve(options, 1), solve(options, 4));
+	}
+
+	@Test
+	void cancelStopsBetweenGenerationsAndKeepsBest() {
+		SolverOptions options = new SolverOptions();
+		options.setSeed(42L);
+		AtomicInteger lastGeneration = new AtomicInteger(-1);
+		SolverMonitor cancelAfterThree = new SolverMonitor() {
+			@Override
+			public boolean isCancelRequested() {
+				return lastGeneration.get() >= 3;
+			}
+
+			@Override
+			public void onGeneration(int generation, double bestFitness) {
+				lastGeneration.set(generation);
+			}
+		};
+
+		List<String> timetable = solve(options, 2, cancelAfterThree);
+
+		assertEquals(3, lastGeneration.get());
+		assertTrue(timetable.stream().noneMatch(t -> t.contains("null")));
+	}
+
+	@Test
+	void stagnationStopsBeforeGenerationLimit() {
+		SolverOptions options = new SolverOptions();
+		options.setSeed(42L);
+		options.setTargetFitness(1.0); // Không thể đạt (fitness <= 0): chỉ điều kiện chững lại được dừng
+		options.setStagnationGenerations(10);
+		AtomicInteger lastGeneration = new AtomicInteger(-1);
+		SolverMonitor monitor = new SolverMonitor() {
+			@Override
+			public void onGeneration(int generation, double bestFitness) {
+				lastGeneration.set(generation);
+			}
+		};
+
+		solve(options, 2, monitor);
+
+		assertTrue(lastGeneration.get() < 299, "stopped at generation " + lastGeneration.get());
+	}
+
+	@Test
+	void decomposedRunReportsAggregatedProgressAndExactTotal() {
+		// 3 nhóm lớp online độc lập (phòng ONLINE không gây trùng), số lớp khác nhau nên ngưỡng tải giảng viên
+		// của từng nhóm nếu tính riêng sẽ khác ngưỡng của cả học kỳ
+		List<Room> rooms = List.of(new Room(1L, "ONLINE", null, "ONLINE"));
+		List<CourseOffering> offerings = new ArrayList<>();
+		Map<Long, List<Lecturer>> candidates = new HashMap<>();
+		int[] groupSizes = {4, 10, 18};
+		for (int group = 0; group < groupSizes.length; group++) {
+			List<Lecturer> pool = new ArrayList<>();
+			for (int k = 0; k < 3; k++) {
+				Lecturer l = new Lecturer();
+				l.setId((long) group * 10 + k + 1);
+				pool.add(l);
+			}
+			for (int i = 0; i < groupSizes[group]; i++) {
+				CourseOffering off = new CourseOffering();
+				off.setId((long) offerings.size() + 1);
+				Course course = new Course();
+				course.setName("Course " + off.getId());
+				off.setCourse(course);
+				off.setClassType("ELN");
+				off.setPlannedSize(30);
+				off.setTargetClasses("K17-" + group + "-" + i % 4);
+				if (i == 0) off.setLecturer(pool.get(0));
+				else candidates.put(off.getId(), pool);
+				offerings.add(off);
+			}
+		}
+		CompiledProblem problem = CompiledProblem.compile(offerings, rooms, candidates, List.of());
+		assertEquals(3, ProblemDecomposer.components(problem).size());
+
+		SolverOptions options = new SolverOptions();
+		options.setDecompose(true);
+		options.setMaxGenerations(20);
+		List<SolverProgress> progress = Collections.synchronizedList(new ArrayList<>());
+		double[] reportedTotal = {Double.NaN};
+		SolverMonitor monitor = new SolverMonitor() {
+			@Override
+			public synchronized void onGeneration(int generation, double bestFitness) {
+				reportedTotal[0] = bestFitness;
+			}
+
+			@Override
+			public boolean isProgressDue() {
+				return true;
+			}
+
+			@Override
+			public void onProgress(SolverProgress p) {
+				progress.add(p);
+			}
+		};
+		Termination termination = Termination.of(options, 300, -10, System.nanoTime());
+		Schedule best = new GeneticAlgorithm()
+				.solve(problem, options, termination, new SplittableRandom(7), monitor, null)
+				.best();
+
+		// Tổng điểm các thành phần (với ngưỡng tải của cả học kỳ) đúng bằng điểm chấm lại lời giải ghép
+		assertEquals(best.fitness, reportedTotal[0], 1e-6);
+		assertFalse(progress.isEmpty());
+		SolverProgress last = progress.get(progress.size() - 1);
+		assertTrue(last.bestFitness() <= best.fitness, last + " vs " + best.fitness);
+	}
+
+	private static List<String> solve(SolverOptions options, int parallelism) {
+		return solve(options, parallelism, SolverMonitor.NONE);
+	}
+
+	@Test
+	void warmStartNeverStartsWorseThanPersistedTimetable() {
+		List<CourseOffering> offerings = new ArrayList<>();
+		List<Room> rooms = new ArrayList<>();
+		buildFixture(offerings, rooms);
+		SolverExecutors executors = new SolverExecutors(2, 1, 1);
+		try {
+			SolverOptions first = new SolverOptions();
+			first.setSeed(1L);
+			first.setMaxGenerations(40);
+			double persisted = bestFitness(newAlgorithm(offerings, rooms, executors).run(1L, first));
+
+			// Chỉ 1 thế hệ: cá thể giữ nguyên lịch đã lưu đã nằm sẵn trong quần thể
+			SolverOptions warm = new SolverOptions();
+			warm.setSeed(2L);
+			warm.setMaxGenerations(1);
+			warm.setWarmStart(true);
+			String result = newAlgorithm(offerings, rooms, executors).run(1L, warm);
+			double restarted = bestFitness(result);
+
+			assertTrue(restarted >= persisted, restarted + " < " + persisted);
+			assertTrue(result.contains("Warm start: reused 80/80"), result);
+		} finally {
+			executors.shutdown();
+		}
+	}
+
+	@Test
+	void assignLecturersPersistsAChosenCandidate() {
+		List<CourseOffering> offerings = new ArrayList<>();
+		List<Room> rooms = new ArrayList<>();
+		buildFixture(offerings, rooms);
+		List<Lecturer> lecturers = offerings.stream().map(CourseOffering::getLecturer).distinct().toList();
+
+		// 1/3 số lớp chưa có giảng viên, mỗi lớp 3 ứng viên
+		Random rnd = new Random(8);
+		Map<Long, List<Lecturer>> candidates = new HashMap<>();
+		Map<Long, Lecturer> fixed = new HashMap<>();
+		for (CourseOffering off : offerings) {
+			if (off.getId() % 3 == 0) {
+				off.setLecturer(null);
+				candidates.put(off.getId(), List.of(lecturers.get(rnd.nextInt(lecturers.size())),
+						lecturers.get(rnd.nextInt(lecturers.size())), lecturers.get(rnd.nextInt(lecturers.size()))));
+			} else {
+				fixed.put(off.getId(), off.getLecturer());
+			}
+		}
+
+		SolverExecutors executors = new SolverExecutors(2, 1, 1);
+		try {
+			GeneticAlgorithm ga = newAlgorithm(offerings, rooms, executors);
+			AutoAssignService autoAssign = mock(AutoAssignService.class);
+			when(autoAssign.findLecturerCandidates(any())).thenReturn(candidates);
+			ReflectionTestUtils.setField(ga, "autoAssignService", autoAssign);
+
+			SolverOptions options = new SolverOptions();
+			options.setSeed(1L);
+			options.setMaxGenerations(30);
+			options.setAssignLecturers(true);
+			ga.run(1L, options);
+		} finally {
+			executors.shutdown();
+		}
+
+		for (CourseOffering off : offerings) {
+			if (candidates.containsKey(off.getId())) {
+				assertTrue(candidates.get(off.getId()).contains(off.getLecturer()), "offering " + off.getId());
+			} else {
+				assertSame(fixed.get(off.getId()), off.getLecturer());
+			}
+		}
+	}
+
+	@Test
+	void infeasibleInputIsReportedWithoutRunning() {
+		List<CourseOffering> offerings = new ArrayList<>();
+		List<Room> rooms = new ArrayList<>();
+		buildFixture(offerings, rooms);
+		rooms.removeIf(r -> !"LAB".equals(r.getType())); // Còn 2 phòng LAB cho cả lớp LT lẫn TH
+
+		SolverExecutors executors = new SolverExecutors(1, 1, 1);
+		String result;
+		try {
+			result = newAlgorithm(offerings, rooms, executors).run(1L, new SolverOptions());
+		} finally {
+			executors.shutdown();
+		}
+
+		assertTrue(result.startsWith("Infeasible: "), result);
+		assertTrue(result.contains("ROOM_TYPE: "), result);
+		assertTrue(offerings.stream().allMatch(o -> o.getDayOfWeek() == null), "nothing is saved");
+	}
+
+	private static double bestFitness(String result) {
+		return Double.parseDouble(result.split("\\|")[0].replace("Best Fitness Score:", "").trim());
+	}
+
+	// Chạy GA trên dữ liệu giả lập, trả về (ngày, kíp, phòng) của từng lớp theo id
+	private static List<String> solve(SolverOptions options, int parallelism, SolverMonitor monitor) {
+		List<CourseOffering> offerings = new ArrayList<>();
+		List<Room> rooms = new ArrayList<>();
+		buildFixture(offerings, rooms);
+		// Thứ tự DB trả về không được ảnh hưởng tới kết quả
+		Collections.shuffle(offerings);
+
+		SolverExecutors executors = new SolverExecutors(parallelism, 1, 1);
+		try {
+			newAlgorithm(offerings, rooms, executors).run(1L, options, monitor);
+		} finally {
+			executors.shutdown();
+		}
+
+		return offerings.stream()
+				.sorted((a, b) -> Long.compare(a.getId(), b.getId()))
+				.map(o -> o.getDayOfWeek() + "/" + o.getStartPeriod() + "/" + o.getRoom().getId())
+				.toList();
+	}
+
+	private static GeneticAlgorithm newAlgorithm(List<CourseOffering> offerings, List<Room> rooms,
+												 SolverExecutors executors) {
+		CourseOfferingRepository offeringRepo = mock(CourseOfferingRepository.class);
+		RoomRepository roomRepo = mock(RoomRepository.class);
+		when(offeringRepo.findBySemester_Id(any())).thenReturn(offerings);
+		when(roomRepo.findAll()).thenReturn(rooms);
+
+		GeneticAlgorithm ga = new GeneticAlgorithm();
+		ReflectionTestUtils.setField(ga, "offeringRepo", offeringRepo);
+		ReflectionTestUtils.setField(ga, "roomRepo", roomRepo);
+		ReflectionTestUtils.setField(ga, "solverExecutors", executors);
+		return ga;
+	}
+
+	private static void buildFixture(List<CourseOffering> offerings, List<Room> rooms) {
+		Random rnd = new Random(3);
+		String[] roomTypes = {"THEORY", "THEORY", "HALL", "LAB", "PC", "ONLINE"};
+		for (int i = 0; i < 12; i++) {
+			rooms.add(new Room((long) i + 1, "R" + i, 30 + rnd.nextInt(60), roomTypes[i % roomTypes.length]));
+		}
+
+		List<Lecturer> lecturers = new ArrayList<>();
+		for (int i = 0; i < 15; i++) {
+			Lecturer l = new Lecturer();
+			l.setId((long) i + 1);
+			lecturers.add(l);
+		}
+
+		for (int i = 0; i < 80; i++) {
+			CourseOffering off = new CourseOffering();
+			off.setId((long) i + 1);
+			Course course = new Course();
+			course.setName(rnd.nextInt(12) == 0 ? "Coursera Data Science" : "Course " + i);
+			off.setCourse(course);
+			off.setClassType(rnd.nextInt(3) == 0 ? "TH" : "LT");
+			off.setPlannedSize(20 + rnd.nextInt(40));
+			off.setTargetClasses("K17-" + rnd.nextInt(10));
+			off.setLecturer(lecturers.get(rnd.nextInt(lecturers.size())));
+			if ("TH".equals(off.getClassType()) && i > 0 && rnd.nextBoolean()) {
+				off.setParent(offerings.get(rnd.nextInt(i)));
+			}
+			offerings.add(off);
+		}
+	}
+}
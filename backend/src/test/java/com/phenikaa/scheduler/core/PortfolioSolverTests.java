@@ -0,0 +1,62 @@
+package com.phenikaa.scheduler.core;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.Random;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PortfolioSolverTests {
+
+	@Test
+	void returnsBestMemberAndReportsWinner() {
+		CompiledProblem problem = FitnessEvaluatorTests.randomProblem(new Random(4), 150, 20);
+		SolverOptions options = new SolverOptions();
+		options.setMaxGenerations(10);
+		options.setPortfolio("SA;TABU;TABU:tabuTenure=20");
+		options.setPortfolioSyncInterval(1);
+
+		AbstractSchedulingEngine.EngineResult result = solve(portfolio(), problem, options);
+
+		// Điểm trả về phải khớp với chấm lại toàn bộ lời giải thắng
+		Schedule rescored = new Schedule(problem);
+		Schedule best = result.best();
+		for (int g = 0; g < problem.size; g++) rescored.setGene(g, best.day[g], best.startPeriod[g], best.roomIdx[g]);
+		new FitnessEvaluator(problem).evaluate(rescored);
+		assertEquals(rescored.fitness, best.fitness, 1e-6);
+		assertTrue(result.details().contains("| Winner: "), result.details());
+		assertTrue(result.details().contains("| Configurations: 3"), result.details());
+	}
+
+	@Test
+	void rejectsUnknownEngineOrParameter() {
+		CompiledProblem problem = FitnessEvaluatorTests.randomProblem(new Random(4), 20, 5);
+		PortfolioSolver solver = portfolio();
+
+		SolverOptions unknownEngine = new SolverOptions();
+		unknownEngine.setPortfolio("SA;ILP");
+		assertThrows(IllegalArgumentException.class, () -> solve(solver, problem, unknownEngine));
+
+		SolverOptions unknownParameter = new SolverOptions();
+		unknownParameter.setPortfolio("TABU:tabuTenur=5");
+		assertThrows(IllegalArgumentException.class, () -> solve(solver, problem, unknownParameter));
+	}
+
+	private static PortfolioSolver portfolio() {
+		PortfolioSolver solver = new PortfolioSolver();
+		ReflectionTestUtils.setField(solver, "engines",
+				List.of(new GeneticAlgorithm(), new SimulatedAnnealing(), new TabuSearch(), solver));
+		return solver;
+	}
+
+	private static AbstractSchedulingEngine.EngineResult solve(PortfolioSolver solver, CompiledProblem problem,
+			SolverOptions options) {
+		Termination termination = Termination.of(options, 0, -10, System.nanoTime());
+		return solver.solve(problem, options, termination, new SplittableRandom(9), SolverMonitor.NONE, null);
+	}
+}
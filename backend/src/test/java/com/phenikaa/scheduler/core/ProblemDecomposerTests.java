@@ -0,0 +1,55 @@
+package com.phenikaa.scheduler.core;
+
+import com.phenikaa.scheduler.model.Course;
+import com.phenikaa.scheduler.model.CourseOffering;
+import com.phenikaa.scheduler.model.Lecturer;
+import com.phenikaa.scheduler.model.Room;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class ProblemDecomposerTests {
+
+	@Test
+	void splitsOfferingsThatCannotConflict() {
+		List<Room> rooms = List.of(
+				new Room(1L, "A101", 60, "THEORY"),
+				new Room(2L, "LAB1", 40, "LAB"),
+				new Room(3L, "ONLINE", null, "ONLINE"));
+
+		CourseOffering theory1 = offering(1, "LT", 1, "K17-A");
+		CourseOffering theory2 = offering(2, "LT", 2, "K17-B");   // Chung phòng A101 với theory1
+		CourseOffering lab = offering(3, "TH", 3, "K17-C");       // Chỉ dùng phòng LAB
+		CourseOffering online1 = offering(4, "ELN", 4, "K17-D");  // Phòng ONLINE không gây trùng
+		CourseOffering online2 = offering(5, "ELN", 5, "K17-E");
+		CourseOffering online3 = offering(6, "ELN", 3, "K17-F");  // Chung giảng viên với lab
+
+		CompiledProblem problem = CompiledProblem.compile(
+				List.of(theory1, theory2, lab, online1, online2, online3), rooms);
+		List<int[]> components = ProblemDecomposer.components(problem);
+
+		assertEquals(4, components.size());
+		assertArrayEquals(new int[]{0, 1}, components.get(0));
+		assertArrayEquals(new int[]{2, 5}, components.get(1));
+		assertArrayEquals(new int[]{3}, components.get(2));
+		assertArrayEquals(new int[]{4}, components.get(3));
+	}
+
+	private static CourseOffering offering(long id, String classType, long lecturerId, String targetClasses) {
+		CourseOffering off = new CourseOffering();
+		off.setId(id);
+		Course course = new Course();
+		course.setName("Course " + id);
+		off.setCourse(course);
+		off.setClassType(classType);
+		off.setPlannedSize(30);
+		off.setTargetClasses(targetClasses);
+		Lecturer lecturer = new Lecturer();
+		lecturer.setId(lecturerId);
+		off.setLecturer(lecturer);
+		return off;
+	}
+}
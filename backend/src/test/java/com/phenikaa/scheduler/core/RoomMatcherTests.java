@@ -0,0 +1,125 @@
+package com.phenikaa.scheduler.core;
+
+import com.phenikaa.scheduler.model.CourseOffering;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RoomMatcherTests {
+
+	@Test
+	void removesRoomClashesWhenEverySlotHasEnoughRooms() {
+		Random rnd = new Random(3);
+		CompiledProblem problem = FitnessEvaluatorTests.randomProblem(rnd, 150, 120);
+		FitnessEvaluator evaluator = new FitnessEvaluator(problem);
+		RoomMatcher matcher = new RoomMatcher(problem);
+
+		for (int i = 0; i < 20; i++) {
+			Schedule sch = FitnessEvaluatorTests.randomSchedule(problem, rnd, 6);
+			int[] day = sch.day.clone();
+			int[] start = sch.startPeriod.clone();
+			assertEquals(0, matcher.assign(sch));
+
+			// Chỉ đổi phòng, mọi lớp vào phòng ứng viên, không còn trùng phòng
+			assertArrayEquals(day, sch.day);
+			assertArrayEquals(start, sch.startPeriod);
+			for (int g = 0; g < problem.size; g++) {
+				int room = sch.roomIdx[g];
+				assertTrue(Arrays.stream(problem.descriptors[g].roomCandidates).anyMatch(r -> r == room));
+			}
+			assertEquals(0, evaluator.countHardViolations(sch).get("ROOM_CLASH"));
+
+			// Ghép lại lần nữa không đổi gì
+			int[] rooms = sch.roomIdx.clone();
+			assertEquals(0, matcher.assign(sch));
+			assertArrayEquals(rooms, sch.roomIdx);
+		}
+	}
+
+	@Test
+	void keepsClearOfPinnedRooms() {
+		Random rnd = new Random(8);
+		CompiledProblem base = FitnessEvaluatorTests.randomProblem(rnd, 150, 120);
+		List<CourseOffering> movable = new ArrayList<>(base.offerings);
+		List<CourseOffering> pinned = new ArrayList<>();
+		for (int k = 0; k < 20; k++) {
+			CourseOffering off = movable.remove(movable.size() - 1);
+			off.setPinned(true);
+			off.setDayOfWeek(2 + rnd.nextInt(2));
+			off.setStartPeriod(4);
+			off.setRoom(base.rooms[k]);
+			pinned.add(off);
+		}
+		CompiledProblem problem = CompiledProblem.compile(movable, List.of(base.rooms), Map.of(), pinned);
+		FitnessEvaluator evaluator = new FitnessEvaluator(problem);
+		RoomMatcher matcher = new RoomMatcher(problem);
+
+		for (int i = 0; i < 20; i++) {
+			Schedule sch = FitnessEvaluatorTests.randomSchedule(problem, rnd, 6);
+			assertEquals(0, matcher.assign(sch));
+			// Không lớp nào bị ghép vào phòng đang bị lớp được ghim chiếm
+			assertEquals(0, evaluator.countHardViolations(sch).get("ROOM_CLASH"));
+		}
+	}
+
+	@Test
+	void neverAddsRoomClashesWhenRoomsAreScarce() {
+		Random rnd = new Random(5);
+		CompiledProblem problem = FitnessEvaluatorTests.randomProblem(rnd, 200, 15);
+		FitnessEvaluator evaluator = new FitnessEvaluator(problem);
+		RoomMatcher matcher = new RoomMatcher(problem);
+
+		for (int i = 0; i < 20; i++) {
+			Schedule sch = FitnessEvaluatorTests.randomSchedule(problem, rnd, 2);
+			int before = evaluator.countHardViolations(sch).get("ROOM_CLASH");
+			matcher.assign(sch);
+			int after = evaluator.countHardViolations(sch).get("ROOM_CLASH");
+			assertTrue(after <= before, after + " > " + before);
+		}
+	}
+
+	@Test
+	void geneticAlgorithmInMatchingModeKeepsScoreExact() {
+		CompiledProblem problem = FitnessEvaluatorTests.randomProblem(new Random(4), 150, 20);
+		SolverOptions options = new SolverOptions();
+		options.setMaxGenerations(15);
+		options.setRoomAssignment(SolverOptions.RoomAssignmentMode.MATCHING);
+		Termination termination = Termination.of(options, 300, -10, System.nanoTime());
+		Schedule best = new GeneticAlgorithm()
+				.solve(problem, options, termination, new SplittableRandom(9), SolverMonitor.NONE, null)
+				.best();
+
+		Schedule rescored = new Schedule(problem);
+		for (int g = 0; g < problem.size; g++) rescored.setGene(g, best.day[g], best.startPeriod[g], best.roomIdx[g]);
+		new FitnessEvaluator(problem).evaluate(rescored);
+		assertEquals(rescored.fitness, best.fitness, 1e-6);
+
+		// Lời giải tốt nhất đã được ghép phòng: ghép lại không đổi phòng nào
+		int[] rooms = best.roomIdx.clone();
+		new RoomMatcher(problem).assign(best);
+		assertArrayEquals(rooms, best.roomIdx);
+	}
+
+	@Test
+	void timeOnlyRegenerationLeavesRoomGenesToTheMatcher() {
+		CompiledProblem problem = FitnessEvaluatorTests.randomProblem(new Random(6), 150, 20);
+		SplittableRandom rnd = new SplittableRandom(2);
+		Schedule sch = new Schedule(problem);
+		for (int g = 0; g < problem.size; g++) AbstractSchedulingEngine.randomGene(sch, g, problem, rnd);
+		int[] rooms = sch.roomIdx.clone();
+
+		// Xếp phòng 2 pha: đột biến chỉ bốc lại (ngày, kíp), không đụng tới phòng
+		for (int g = 0; g < problem.size; g++) AbstractSchedulingEngine.randomTime(sch, g, problem, rnd);
+		assertArrayEquals(rooms, sch.roomIdx);
+		assertTrue(Arrays.stream(sch.day).allMatch(d -> d >= 2 && d <= 7));
+	}
+}
@@ -0,0 +1,98 @@
+package com.phenikaa.scheduler.core;
+
+import com.phenikaa.scheduler.model.CourseOffering;
+import com.phenikaa.scheduler.model.Lecturer;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SimulatedAnnealingTests {
+
+	@Test
+	void incrementalBestMatchesFullEvaluationAndImprovesOnStart() {
+		Random rnd = new Random(4);
+		CompiledProblem problem = FitnessEvaluatorTests.randomProblem(rnd, 150, 20);
+		SolverOptions options = new SolverOptions();
+		options.setMaxGenerations(60);
+
+		Schedule best = anneal(problem, options, 9);
+		Schedule again = anneal(problem, options, 9);
+
+		// Điểm theo dõi tăng dần phải khớp với chấm lại toàn bộ
+		Schedule rescored = new Schedule(problem);
+		for (int g = 0; g < problem.size; g++) rescored.setGene(g, best.day[g], best.startPeriod[g], best.roomIdx[g]);
+		new FitnessEvaluator(problem).evaluate(rescored);
+		assertEquals(rescored.fitness, best.fitness, 1e-6);
+
+		// Cùng seed -> cùng lời giải
+		assertArrayEquals(best.day, again.day);
+		assertArrayEquals(best.startPeriod, again.startPeriod);
+		assertArrayEquals(best.roomIdx, again.roomIdx);
+
+		Schedule start = new Schedule(problem);
+		SplittableRandom startRandom = new SplittableRandom(1);
+		for (int g = 0; g < problem.size; g++) AbstractSchedulingEngine.randomGene(start, g, problem, startRandom);
+		new FitnessEvaluator(problem).evaluate(start);
+		assertTrue(best.fitness > start.fitness, best.fitness + " <= " + start.fitness);
+		assertTrue(Arrays.stream(best.day).allMatch(d -> d >= 2 && d <= 7));
+	}
+
+	@Test
+	void searchesLecturersAmongCandidates() {
+		Random rnd = new Random(8);
+		CompiledProblem base = FitnessEvaluatorTests.randomProblem(rnd, 120, 20);
+		List<Lecturer> lecturers = base.offerings.stream()
+				.map(CourseOffering::getLecturer)
+				.filter(l -> l != null)
+				.distinct()
+				.toList();
+		Map<Long, List<Lecturer>> candidates = new HashMap<>();
+		for (CourseOffering off : base.offerings) {
+			if (off.getLecturer() == null) {
+				candidates.put(off.getId(), List.of(lecturers.get(rnd.nextInt(lecturers.size())),
+						lecturers.get(rnd.nextInt(lecturers.size())), lecturers.get(rnd.nextInt(lecturers.size()))));
+			}
+		}
+		CompiledProblem problem = CompiledProblem.compile(base.offerings, List.of(base.rooms), candidates, List.of());
+		SolverOptions options = new SolverOptions();
+		options.setAssignLecturers(true);
+		options.setMaxGenerations(40);
+
+		// SA có nước đổi giảng viên: lời giải trả về phải khác lượt bốc đầu nhưng vẫn nằm trong tập ứng viên
+		SplittableRandom runRandom = new SplittableRandom(5);
+		Schedule initial = new SimulatedAnnealing()
+				.initialSchedule(problem, new FitnessEvaluator(problem), options, runRandom.split());
+		assertFalse(Arrays.equals(initial.lecturer, new Schedule(problem).lecturer));
+
+		Schedule best = anneal(problem, options, 5);
+		assertFalse(Arrays.equals(initial.lecturer, best.lecturer));
+		for (int g = 0; g < problem.descriptors.length; g++) {
+			OfferingDescriptor d = problem.descriptors[g];
+			int lecturer = best.lecturer[g];
+			if (d.lecturer >= 0) assertEquals(d.lecturer, lecturer);
+			else assertTrue(Arrays.stream(d.lecturerCandidates).anyMatch(l -> l == lecturer));
+		}
+
+		Schedule rescored = new Schedule(problem);
+		rescored.copyFrom(best);
+		new FitnessEvaluator(problem).evaluate(rescored);
+		assertEquals(rescored.fitness, best.fitness, 1e-6);
+	}
+
+	private static Schedule anneal(CompiledProblem problem, SolverOptions options, long seed) {
+		Termination termination = Termination.of(options, 300, -10, System.nanoTime());
+		return new SimulatedAnnealing()
+				.solve(problem, options, termination, new SplittableRandom(seed), SolverMonitor.NONE, null)
+				.best();
+	}
+}
@@ -0,0 +1,68 @@
+package com.phenikaa.scheduler.core;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TabuSearchTests {
+
+	@Test
+	void conflictGraphLinksOfferingsSharingLecturerClassOrParent() {
+		CompiledProblem problem = FitnessEvaluatorTests.randomProblem(new Random(6), 120, 15);
+		ConflictGraph graph = ConflictGraph.of(problem);
+
+		for (int g = 0; g < problem.size; g++) {
+			Set<Integer> expected = new HashSet<>();
+			for (int h = 0; h < problem.size; h++) {
+				if (h != g && conflicting(problem.descriptors[g], problem.descriptors[h], g, h)) expected.add(h);
+			}
+			Set<Integer> actual = new HashSet<>();
+			for (int i = 0; i < graph.degree(g); i++) actual.add(graph.neighbour(g, i));
+
+			// Không lặp láng giềng, đúng tập láng giềng
+			assertEquals(graph.degree(g), actual.size());
+			assertEquals(expected, actual, "offering " + g);
+		}
+	}
+
+	@Test
+	void searchKeepsIncrementalScoreExactAndImprovesOnStart() {
+		CompiledProblem problem = FitnessEvaluatorTests.randomProblem(new Random(4), 150, 20);
+		SolverOptions options = new SolverOptions();
+		options.setMaxGenerations(20);
+		Termination termination = Termination.of(options, 300, -10, System.nanoTime());
+		Schedule best = new TabuSearch()
+				.solve(problem, options, termination, new SplittableRandom(9), SolverMonitor.NONE, null)
+				.best();
+
+		// Điểm sau hàng nghìn nước đi (có chuỗi Kempe) phải khớp với chấm lại toàn bộ
+		FitnessEvaluator evaluator = new FitnessEvaluator(problem);
+		Schedule rescored = new Schedule(problem);
+		for (int g = 0; g < problem.size; g++) rescored.setGene(g, best.day[g], best.startPeriod[g], best.roomIdx[g]);
+		evaluator.evaluate(rescored);
+		assertEquals(rescored.fitness, best.fitness, 1e-6);
+
+		Schedule start = new Schedule(problem);
+		SplittableRandom startRandom = new SplittableRandom(1);
+		for (int g = 0; g < problem.size; g++) AbstractSchedulingEngine.randomGene(start, g, problem, startRandom);
+		evaluator.evaluate(start);
+		assertTrue(best.fitness > start.fitness, best.fitness + " <= " + start.fitness);
+	}
+
+	private static boolean conflicting(OfferingDescriptor a, OfferingDescriptor b, int g, int h) {
+		if (a.lecturer >= 0 && a.lecturer == b.lecturer) return true;
+		if (a.parent == h || b.parent == g) return true;
+		for (int ca : a.classes) {
+			for (int cb : b.classes) {
+				if (ca == cb) return true;
+			}
+		}
+		return false;
+	}
+}